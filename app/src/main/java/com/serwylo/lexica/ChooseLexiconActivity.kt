@@ -11,6 +11,7 @@ import androidx.recyclerview.widget.LinearLayoutManager
 import androidx.recyclerview.widget.RecyclerView
 import com.serwylo.lexica.databinding.ChooseLexiconBinding
 import com.serwylo.lexica.databinding.LexiconListItemBinding
+import com.serwylo.lexica.game.Dictionaries
 import com.serwylo.lexica.lang.Language
 import com.serwylo.lexica.lang.LanguageLabel
 
@@ -60,6 +61,8 @@ class ChooseLexiconActivity : AppCompatActivity() {
                 .putString("dict", language.name)
                 .apply()
 
+        Dictionaries.onLanguageChanged(language)
+
         NavUtils.navigateUpFromSameTask(this)
     }
 
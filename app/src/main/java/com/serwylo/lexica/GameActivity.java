@@ -19,23 +19,31 @@ package com.serwylo.lexica;
 
 import android.content.Intent;
 import android.os.Bundle;
+import android.os.SystemClock;
 import android.util.Log;
 import android.view.Menu;
 import android.view.MenuInflater;
 import android.view.MenuItem;
+import android.view.View;
 import android.view.ViewGroup;
+import android.view.ViewTreeObserver;
 import android.widget.FrameLayout;
+import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
 import androidx.core.app.NavUtils;
+import androidx.lifecycle.Lifecycle;
 
 import com.serwylo.lexica.db.Database;
 import com.serwylo.lexica.db.GameMode;
 import com.serwylo.lexica.db.ResultRepository;
+import com.serwylo.lexica.game.Dictionaries;
 import com.serwylo.lexica.game.Game;
+import com.serwylo.lexica.game.GameEngine;
+import com.serwylo.lexica.game.GameLoader;
 import com.serwylo.lexica.view.LexicaView;
 
 public class GameActivity extends AppCompatActivity implements Synchronizer.Finalizer {
@@ -46,15 +54,31 @@ public class GameActivity extends AppCompatActivity implements Synchronizer.Fina
     private Game game;
     private FrameLayout gameWrapper;
     private Toolbar toolbar;
+    private View loadingView;
+    private TextView loadingStatus;
+
+    private final GameLoader loader = new GameLoader();
+
+    /**
+     * Used to log how long it takes from creating this activity until the board is first drawn,
+     * and whether the dictionary was already loaded ("warm") or not ("cold") at the time.
+     */
+    private long createdAt;
+    private boolean dictionaryWasCached;
 
     @Override
     public void onCreate(Bundle savedInstanceState) {
+        createdAt = SystemClock.elapsedRealtime();
+        dictionaryWasCached = Dictionaries.getInstance(this).contains(new Util().getSelectedLanguageOrDefault(this));
+
         super.onCreate(savedInstanceState);
         ThemeManager.getInstance().applyTheme(this);
 
         setContentView(R.layout.game);
 
         gameWrapper = findViewById(R.id.game_wrapper);
+        loadingView = findViewById(R.id.loading);
+        loadingStatus = findViewById(R.id.loading_status);
         toolbar = findViewById(R.id.toolbar);
         toolbar.setTitle(R.string.app_name);
         setSupportActionBar(toolbar);
@@ -62,19 +86,21 @@ public class GameActivity extends AppCompatActivity implements Synchronizer.Fina
         toolbar.setNavigationOnClickListener(v -> navigateToHome());
 
         if (savedInstanceState != null) {
-            try {
+            if (new GameSaverTransient(savedInstanceState).hasSavedGame()) {
                 restoreGame(savedInstanceState);
-            } catch (Exception e) {
-                // On API < 11, the above should work fine because onSaveInstanceState should be
-                // called before onPause. However, on API >= 11, onPause is always called _before_
-                // onSaveInstanceState. In these cases, we will have to resort to the preferences
-                // in order to restore our game (http://stackoverflow.com/a/28549669).
-                Log.e(TAG, "error restoring state from savedInstanceState, trying to look for saved game in preferences", e);
-                if (hasSavedGame()) {
-                    restoreGame();
-                }
+                return;
+            }
+
+            // On API < 11, the above should work fine because onSaveInstanceState should be
+            // called before onPause. However, on API >= 11, onPause is always called _before_
+            // onSaveInstanceState. In these cases, we will have to resort to the preferences
+            // in order to restore our game (http://stackoverflow.com/a/28549669).
+            if (hasSavedGame()) {
+                restoreGame();
+                return;
             }
-            return;
+
+            // Otherwise we were recreated before the game even finished loading, so start again.
         }
         try {
             String action = getIntent().getAction();
@@ -85,9 +111,12 @@ public class GameActivity extends AppCompatActivity implements Synchronizer.Fina
                 case "com.serwylo.lexica.action.NEW_GAME":
                     newGame(getIntent().getExtras().getParcelable("gameMode"));
                     break;
+                default:
+                    giveUp();
             }
         } catch (Exception e) {
             Log.e(TAG, "top level", e);
+            giveUp();
         }
     }
 
@@ -100,6 +129,10 @@ public class GameActivity extends AppCompatActivity implements Synchronizer.Fina
 
     @Override
     public boolean onOptionsItemSelected(MenuItem item) {
+        if (game == null) {
+            return true;
+        }
+
         switch (item.getItemId()) {
             case R.id.rotate:
                 game.rotateBoard();
@@ -112,35 +145,99 @@ public class GameActivity extends AppCompatActivity implements Synchronizer.Fina
 
     @Override
     public boolean onPrepareOptionsMenu(Menu menu) {
-        return game.getStatus() != Game.GameStatus.GAME_FINISHED;
+        return game != null && game.getStatus() != GameEngine.GameStatus.GAME_FINISHED;
     }
 
     private void newGame(GameMode gameMode) {
-        Game bestGame = new Game(this, gameMode);
-        int numAttempts = 0;
-        while (bestGame.getMaxWordCount() < 45 && numAttempts < 5) {
-            Log.d(TAG, "Generating another board, because the previous one only had " + bestGame.getMaxWordCount() + " words, but we want at least 45. Will give up after 5 tries.");
-            Game nextAttempt = new Game(this, gameMode);
-            if (nextAttempt.getMaxWordCount() > bestGame.getMaxWordCount()) {
-                bestGame = nextAttempt;
-            }
-            numAttempts ++;
-        }
-
-        Log.d(TAG, "Generated new board with " + bestGame.getMaxWordCount() + " words");
-        this.game = bestGame;
-        setupGameView(game);
+        loadGame(listener -> new Game(this, gameMode, listener), null, null);
     }
 
+    /**
+     * The saved game is cleared once it has loaded, or failed to (so that it isn't tried again
+     * next time). Not before, in case this load is cancelled because the activity is recreated,
+     * in which case the new activity needs to restore it instead.
+     */
     private void restoreGame() {
-        clearSavedGame();
-        game = new Game(this, new GameSaverPersistent(this));
-        setupGameView(game);
+        GameSaverPersistent saver = new GameSaverPersistent(this);
+        loadGame(listener -> new Game(this, saver, listener), saver::clearSavedGame, null);
     }
 
     private void restoreGame(Bundle bun) {
-        game = new Game(this, new GameSaverTransient(bun));
-        setupGameView(game);
+        loadGame(listener -> new Game(this, new GameSaverTransient(bun), listener), null, () -> {
+            if (hasSavedGame()) {
+                restoreGame();
+            } else {
+                giveUp();
+            }
+        });
+    }
+
+    /**
+     * Shows a loading indicator until the game is ready, and then starts it (if this activity is
+     * still in the foreground).
+     *
+     * @param onFinished If not null, run once the game has either loaded or failed to, as long as
+     *                   this is still the current load.
+     * @param onError    If null, then give up and return to the main menu when the game can't be
+     *                   loaded.
+     */
+    private void loadGame(GameLoader.GameFactory factory, Runnable onFinished, Runnable onError) {
+        game = null;
+        loadingStatus.setText(R.string.loading_game);
+        loadingView.setVisibility(View.VISIBLE);
+
+        loader.load(factory, new GameLoader.Callback() {
+            @Override
+            public void onLoadingStage(Game.LoadingStage stage) {
+                loadingStatus.setText(loadingStageLabel(stage));
+            }
+
+            @Override
+            public void onLoaded(Game loaded) {
+                if (onFinished != null) {
+                    onFinished.run();
+                }
+
+                game = loaded;
+                setupGameView(game);
+                invalidateOptionsMenu();
+
+                if (getLifecycle().getCurrentState().isAtLeast(Lifecycle.State.RESUMED)) {
+                    resumeGame();
+                }
+            }
+
+            @Override
+            public void onError(Exception e) {
+                Log.e(TAG, "Error loading game", e);
+                if (onFinished != null) {
+                    onFinished.run();
+                }
+
+                if (onError != null) {
+                    onError.run();
+                } else {
+                    giveUp();
+                }
+            }
+        });
+    }
+
+    private static int loadingStageLabel(Game.LoadingStage stage) {
+        switch (stage) {
+            case GENERATING_BOARD:
+                return R.string.loading_generating_board;
+            case LOADING_DICTIONARY:
+                return R.string.loading_dictionary;
+            case FINDING_WORDS:
+            default:
+                return R.string.loading_finding_words;
+        }
+    }
+
+    private void giveUp() {
+        Toast.makeText(this, R.string.error_restoring_game, Toast.LENGTH_SHORT).show();
+        NavUtils.navigateUpFromSameTask(this);
     }
 
     private void setupGameView(Game game) {
@@ -161,10 +258,19 @@ public class GameActivity extends AppCompatActivity implements Synchronizer.Fina
 
         gameWrapper.removeAllViews();
         gameWrapper.addView(lv, lp);
+
+        lv.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                lv.getViewTreeObserver().removeOnPreDrawListener(this);
+                Log.i(TAG, "Time to first frame: " + (SystemClock.elapsedRealtime() - createdAt) + "ms (" + (dictionaryWasCached ? "warm" : "cold") + ")");
+                return true;
+            }
+        });
     }
 
     private void saveGame() {
-        if (game.getStatus() == Game.GameStatus.GAME_RUNNING) {
+        if (game != null && game.getStatus() == GameEngine.GameStatus.GAME_RUNNING) {
             game.pause();
 
             game.save(new GameSaverPersistent(this));
@@ -173,32 +279,44 @@ public class GameActivity extends AppCompatActivity implements Synchronizer.Fina
     }
 
     private void saveGame(Bundle state) {
-        if (game.getStatus() == Game.GameStatus.GAME_RUNNING) {
+        if (game != null && game.getStatus() == GameEngine.GameStatus.GAME_RUNNING) {
             game.pause();
             game.save(new GameSaverTransient(state));
         }
     }
 
     private void navigateToHome() {
-        synch.abort();
+        if (synch != null) {
+            synch.abort();
+        }
         saveGame();
         NavUtils.navigateUpFromSameTask(this);
     }
 
     public void onPause() {
         super.onPause();
-        synch.abort();
+        if (synch != null) {
+            synch.abort();
+        }
         saveGame();
     }
 
     public void onResume() {
         super.onResume();
-        if (game == null) {
-            Toast.makeText(this, R.string.error_restoring_game, Toast.LENGTH_SHORT).show();;
-            NavUtils.navigateUpFromSameTask(this);
-            return;
+
+        // Otherwise the game is still loading, and will be resumed once it is ready.
+        if (game != null) {
+            resumeGame();
         }
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        loader.cancel();
+    }
 
+    private void resumeGame() {
         switch (game.getStatus()) {
             case GAME_STARTING:
                 game.start();
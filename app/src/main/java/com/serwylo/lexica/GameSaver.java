@@ -6,7 +6,8 @@ import androidx.annotation.Nullable;
 
 import com.serwylo.lexica.db.GameMode;
 import com.serwylo.lexica.game.Board;
-import com.serwylo.lexica.game.Game;
+import com.serwylo.lexica.game.BoardId;
+import com.serwylo.lexica.game.GameEngine;
 
 import java.util.Date;
 
@@ -23,6 +24,8 @@ public abstract class GameSaver {
     protected static final String TIME_REMAINING = "timeRemaining";
     protected static final String GAME_BOARD = "gameBoard";
     protected static final String BOARD_SIZE = "boardSize";
+    protected static final String BOARD_ID = "boardId";
+    protected static final String BOARD_ROTATIONS = "boardRotations";
     protected static final String STATUS = "status";
     protected static final String START = "startTime";
 
@@ -40,7 +43,15 @@ public abstract class GameSaver {
 
     public abstract int readBoardSize();
 
-    public abstract Game.GameStatus readStatus();
+    /**
+     * Null if the board was not generated from a seed, or was saved before boards had ids.
+     */
+    @Nullable
+    public abstract BoardId readBoardId();
+
+    public abstract int readBoardRotations();
+
+    public abstract GameEngine.GameStatus readStatus();
 
     public abstract Date readStart();
 
@@ -48,5 +59,23 @@ public abstract class GameSaver {
         return TextUtils.isEmpty(string) ? new String[]{} : string.split(",");
     }
 
-    public abstract void save(Board board, int timeRemaining, GameMode gameMode, String wordListToString, int wordCount, Date start, Game.GameStatus status);
+    @Nullable
+    protected static BoardId parseBoardId(@Nullable String id) {
+        if (id == null) {
+            return null;
+        }
+
+        try {
+            return BoardId.parse(id);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    @Nullable
+    protected static String boardIdToString(Board board) {
+        return board.getId() == null ? null : board.getId().toString();
+    }
+
+    public abstract void save(Board board, int timeRemaining, GameMode gameMode, String wordListToString, int wordCount, Date start, GameEngine.GameStatus status);
 }
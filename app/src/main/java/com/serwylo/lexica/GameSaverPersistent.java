@@ -7,7 +7,8 @@ import androidx.annotation.NonNull;
 
 import com.serwylo.lexica.db.GameMode;
 import com.serwylo.lexica.game.Board;
-import com.serwylo.lexica.game.Game;
+import com.serwylo.lexica.game.BoardId;
+import com.serwylo.lexica.game.GameEngine;
 
 import java.util.Date;
 
@@ -67,8 +68,18 @@ public class GameSaverPersistent extends GameSaver {
     }
 
     @Override
-    public Game.GameStatus readStatus() {
-        return Game.GameStatus.GAME_STARTING;
+    public BoardId readBoardId() {
+        return parseBoardId(getPrefs().getString(BOARD_ID, null));
+    }
+
+    @Override
+    public int readBoardRotations() {
+        return getPrefs().getInt(BOARD_ROTATIONS, 0);
+    }
+
+    @Override
+    public GameEngine.GameStatus readStatus() {
+        return GameEngine.GameStatus.GAME_STARTING;
     }
 
     @Override
@@ -77,12 +88,14 @@ public class GameSaverPersistent extends GameSaver {
     }
 
     @Override
-    public void save(Board board, int timeRemaining, GameMode gameMode, String wordListToString, int wordCount, Date start, Game.GameStatus status) {
+    public void save(Board board, int timeRemaining, GameMode gameMode, String wordListToString, int wordCount, Date start, GameEngine.GameStatus status) {
 
         SharedPreferences.Editor prefs = getPrefs().edit();
         prefs.putString(GAME_MODE, gameMode.serialize());
         prefs.putInt(BOARD_SIZE, board.getSize());
         prefs.putString(GAME_BOARD, board.toString());
+        prefs.putString(BOARD_ID, boardIdToString(board));
+        prefs.putInt(BOARD_ROTATIONS, board.getRotations());
         prefs.putInt(TIME_REMAINING, timeRemaining);
         prefs.putString(WORDS, wordListToString);
         prefs.putInt(WORD_COUNT, wordCount);
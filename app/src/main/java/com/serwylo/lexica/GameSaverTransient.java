@@ -4,7 +4,8 @@ import android.os.Bundle;
 
 import com.serwylo.lexica.db.GameMode;
 import com.serwylo.lexica.game.Board;
-import com.serwylo.lexica.game.Game;
+import com.serwylo.lexica.game.BoardId;
+import com.serwylo.lexica.game.GameEngine;
 
 import java.util.Date;
 
@@ -52,9 +53,19 @@ public class GameSaverTransient extends GameSaver {
     }
 
     @Override
-    public Game.GameStatus readStatus() {
+    public BoardId readBoardId() {
+        return parseBoardId(bundle.getString(BOARD_ID));
+    }
+
+    @Override
+    public int readBoardRotations() {
+        return bundle.getInt(BOARD_ROTATIONS, 0);
+    }
+
+    @Override
+    public GameEngine.GameStatus readStatus() {
         String status = bundle.getString(STATUS);
-        return status == null ? null : Game.GameStatus.valueOf(status);
+        return status == null ? null : GameEngine.GameStatus.valueOf(status);
     }
 
     @Override
@@ -64,10 +75,12 @@ public class GameSaverTransient extends GameSaver {
     }
 
     @Override
-    public void save(Board board, int timeRemaining, GameMode gameMode, String wordListToString, int wordCount, Date start, Game.GameStatus status) {
+    public void save(Board board, int timeRemaining, GameMode gameMode, String wordListToString, int wordCount, Date start, GameEngine.GameStatus status) {
         bundle.putInt(GameSaver.BOARD_SIZE, board.getSize());
 
         bundle.putString(GameSaver.GAME_BOARD, board.toString());
+        bundle.putString(GameSaver.BOARD_ID, boardIdToString(board));
+        bundle.putInt(GameSaver.BOARD_ROTATIONS, board.getRotations());
         bundle.putInt(GameSaver.TIME_REMAINING, timeRemaining);
         bundle.putParcelable(GameSaver.GAME_MODE, gameMode);
         bundle.putString(GameSaver.WORDS, wordListToString);
@@ -32,6 +32,7 @@ import com.serwylo.lexica.db.GameModeRepository;
 import com.serwylo.lexica.db.Result;
 import com.serwylo.lexica.db.ResultRepository;
 import com.serwylo.lexica.db.migration.MigrateHighScoresFromPreferences;
+import com.serwylo.lexica.game.BoardPool;
 import com.serwylo.lexica.lang.Language;
 import com.serwylo.lexica.lang.LanguageLabel;
 
@@ -119,6 +120,9 @@ public class MainMenuActivity extends AppCompatActivity {
             final GameMode gameMode = gameModeRepository.loadCurrentGameMode();
             final Result highScore = resultRepository.findHighScore(gameMode, language);
 
+            // Get a board ready in the background so the next game can start straight away.
+            BoardPool.getInstance(this).refill(language, gameMode);
+
             runOnUiThread(() -> splashScreen(gameMode, highScore));
 
         });
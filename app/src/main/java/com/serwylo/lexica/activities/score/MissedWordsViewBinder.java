@@ -75,7 +75,7 @@ class MissedWordsViewBinder extends ScoreWordsViewBinder {
     }
 
     private void onViewWord(String word) {
-        boardView.highlight(game.getSolutions().get(word).get(0).getPositions());
+        boardView.highlight(game.getSolutions().get(word).get(0).getPath());
         boardView.invalidate();
 
         // Clear out the old selected item, find the new selected item, then notify the
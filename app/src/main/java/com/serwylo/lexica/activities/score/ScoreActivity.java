@@ -20,7 +20,9 @@ package com.serwylo.lexica.activities.score;
 import android.content.Intent;
 import android.content.res.Resources;
 import android.os.Bundle;
+import android.util.Log;
 import android.util.TypedValue;
+import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
@@ -35,7 +37,6 @@ import mehdi.sakout.fancybuttons.FancyButton;
 
 public class ScoreActivity extends AppCompatActivity {
 
-    @SuppressWarnings("unused")
     private static final String TAG = "ScoreActivity";
 
     private Game game;
@@ -61,13 +62,21 @@ public class ScoreActivity extends AppCompatActivity {
 
         setContentView(R.layout.score);
 
-        Game game = initialiseGame(savedInstanceState);
+        Game game;
+        try {
+            game = initialiseGame(savedInstanceState);
+        } catch (Game.RestoreFailed e) {
+            Log.e(TAG, "Error restoring game", e);
+            Toast.makeText(this, R.string.error_restoring_game, Toast.LENGTH_SHORT).show();
+            finish();
+            return;
+        }
         this.game = game;
         initialiseView(game);
     }
 
     @NonNull
-    private Game initialiseGame(Bundle savedInstanceState) {
+    private Game initialiseGame(Bundle savedInstanceState) throws Game.RestoreFailed {
 
         Game game;
 
@@ -118,7 +127,9 @@ public class ScoreActivity extends AppCompatActivity {
     @Override
     protected void onSaveInstanceState(@NonNull Bundle outState) {
         super.onSaveInstanceState(outState);
-        game.save(new GameSaverTransient(outState));
+        if (game != null) {
+            game.save(new GameSaverTransient(outState));
+        }
     }
 
 }
@@ -8,11 +8,12 @@ import androidx.room.TypeConverters;
 
 import com.serwylo.lexica.db.converters.GameModeTypeConverter;
 import com.serwylo.lexica.db.migration.Migration_1_2_RecordWhetherSelectedWordsAreWords;
+import com.serwylo.lexica.db.migration.Migration_2_3_AddMinWordsOnBoardToGameMode;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
-@androidx.room.Database(entities = {GameMode.class, Result.class, SelectedWord.class}, version = 2)
+@androidx.room.Database(entities = {GameMode.class, Result.class, SelectedWord.class}, version = 3)
 @TypeConverters(GameModeTypeConverter.class)
 public abstract class Database extends RoomDatabase {
 
@@ -29,7 +30,10 @@ public abstract class Database extends RoomDatabase {
             synchronized (Database.class) {
                 if (instance == null) {
                     instance = Room.databaseBuilder(context.getApplicationContext(), Database.class, "lexica")
-                            .addMigrations(new Migration_1_2_RecordWhetherSelectedWordsAreWords())
+                            .addMigrations(
+                                    new Migration_1_2_RecordWhetherSelectedWordsAreWords(),
+                                    new Migration_2_3_AddMinWordsOnBoardToGameMode()
+                            )
                             .build();
                 }
             }
@@ -2,6 +2,7 @@ package com.serwylo.lexica.db
 
 import android.content.Context
 import android.os.Parcelable
+import androidx.room.ColumnInfo
 import androidx.room.PrimaryKey
 import androidx.room.Entity
 import com.serwylo.lexica.R
@@ -36,6 +37,13 @@ data class GameMode (
 
         val hintMode: String,
 
+        /**
+         * New boards with fewer words than this (of at least [minWordLength]) are thrown away and
+         * generated again, a limited number of times.
+         */
+        @ColumnInfo(defaultValue = "$DEFAULT_MIN_WORDS_ON_BOARD")
+        val minWordsOnBoard: Int = DEFAULT_MIN_WORDS_ON_BOARD,
+
 ) : Parcelable {
 
     enum class Type {
@@ -97,6 +105,7 @@ data class GameMode (
                 .appendLine(minWordLength)
                 .appendLine(scoreType)
                 .appendLine(hintMode)
+                .appendLine(minWordsOnBoard)
                 .toString()
     }
 
@@ -107,6 +116,7 @@ data class GameMode (
     companion object {
         const val SCORE_WORDS = "W"
         const val SCORE_LETTERS = "L"
+        const val DEFAULT_MIN_WORDS_ON_BOARD = 45
 
         @JvmStatic fun deserialize(modeString: String): GameMode {
             val parts = modeString.split("\n")
@@ -120,6 +130,9 @@ data class GameMode (
                     minWordLength = parts[5].toInt(),
                     scoreType = parts[6],
                     hintMode = parts[7],
+
+                    // Not present in games saved before this was configurable.
+                    minWordsOnBoard = parts.getOrNull(8)?.toIntOrNull() ?: DEFAULT_MIN_WORDS_ON_BOARD,
             )
         }
 
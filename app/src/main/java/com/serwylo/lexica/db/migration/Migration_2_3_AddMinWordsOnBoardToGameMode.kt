@@ -0,0 +1,23 @@
+package com.serwylo.lexica.db.migration
+
+import android.util.Log
+import androidx.room.migration.Migration
+import androidx.sqlite.db.SupportSQLiteDatabase
+import com.serwylo.lexica.db.GameMode
+
+/**
+ * The number of words required on a new board used to be hard coded. Existing game modes keep
+ * that same number, but new game modes can choose something else.
+ */
+class Migration_2_3_AddMinWordsOnBoardToGameMode : Migration(2, 3) {
+
+    override fun migrate(database: SupportSQLiteDatabase) {
+        Log.i(TAG, "Adding column to GameMode to record the minimum number of words on a new board.")
+        database.execSQL("ALTER TABLE GameMode ADD minWordsOnBoard INTEGER NOT NULL DEFAULT ${GameMode.DEFAULT_MIN_WORDS_ON_BOARD}")
+    }
+
+    companion object {
+        const val TAG = "MigrateMinWordsOnBoard"
+    }
+
+}
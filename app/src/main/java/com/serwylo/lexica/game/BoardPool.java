@@ -0,0 +1,302 @@
+package com.serwylo.lexica.game;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.serwylo.lexica.db.GameMode;
+import com.serwylo.lexica.lang.Language;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Keeps a few boards ready for each combination of language, board size and minimum word length,
+ * so that starting a new game doesn't have to generate (and count the words on) several boards
+ * before it can show anything.
+ * <p>
+ * Boards are generated on a single background thread, and only their {@link BoardId}, letters and
+ * word count are kept (in shared preferences, so they survive the app being restarted). Once a
+ * board is taken from the pool it is regenerated from its id, and then only that board needs to
+ * be solved in full.
+ */
+public class BoardPool {
+
+    private static final String TAG = "BoardPool";
+
+    private static final String PREFS_NAME = "board_pool";
+
+    /**
+     * Number of boards to keep ready for each language, board size and minimum word length.
+     */
+    private static final int BOARDS_PER_POOL = 3;
+
+    /**
+     * When generating a board while the user is waiting for it, give up on finding enough words
+     * after this many boards.
+     */
+    private static final int MAX_BOARD_ATTEMPTS = 6;
+
+    /**
+     * Nobody is waiting for boards generated in the background, so they can try harder to find a
+     * board with enough words.
+     */
+    private static final int MAX_BACKGROUND_BOARD_ATTEMPTS = 30;
+
+    private static BoardPool instance;
+
+    public static synchronized BoardPool getInstance(Context context) {
+        if (instance == null) {
+            instance = new BoardPool(context.getApplicationContext());
+        }
+
+        return instance;
+    }
+
+    private final Context context;
+    private final SharedPreferences prefs;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor();
+    private final Random random = new Random();
+
+    /**
+     * Pools which have already been queued for refilling on the {@link #worker} thread.
+     */
+    private final Set<String> refilling = new HashSet<>();
+
+    private BoardPool(Context context) {
+        this.context = context;
+        this.prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * Takes a board from the pool for this language and game mode, preferring one with at least
+     * {@link GameMode#getMinWordsOnBoard()} words. If the pool is empty, a board is generated now
+     * instead. Either way, the pool is then refilled in the background.
+     */
+    public Board takeBoard(Language language, GameMode gameMode) {
+        Board board = takePooledBoard(language, gameMode);
+        if (board == null) {
+            CharProbGenerator generator = createCharProbGenerator(context, language);
+            board = generator.generateBoard(generateBestBoard(generator, language, gameMode, MAX_BOARD_ATTEMPTS).getId());
+        }
+
+        refill(language, gameMode);
+        return board;
+    }
+
+    /**
+     * Queues up boards to be generated for this language and game mode, unless the pool is
+     * already full (or about to be refilled).
+     */
+    public void refill(Language language, GameMode gameMode) {
+        String key = poolKey(language, gameMode);
+        synchronized (this) {
+            if (readPool(key).size() >= BOARDS_PER_POOL || !refilling.add(key)) {
+                return;
+            }
+        }
+
+        worker.execute(() -> {
+            try {
+                CharProbGenerator generator = createCharProbGenerator(context, language);
+                while (true) {
+                    synchronized (this) {
+                        if (readPool(key).size() >= BOARDS_PER_POOL) {
+                            break;
+                        }
+                    }
+
+                    PooledBoard board = generateBestBoard(generator, language, gameMode, MAX_BACKGROUND_BOARD_ATTEMPTS);
+                    synchronized (this) {
+                        List<PooledBoard> pool = readPool(key);
+                        pool.add(board);
+                        writePool(key, pool);
+                    }
+                }
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Error generating boards for " + key, e);
+            } finally {
+                synchronized (this) {
+                    refilling.remove(key);
+                }
+            }
+        });
+    }
+
+    @Nullable
+    private synchronized Board takePooledBoard(Language language, GameMode gameMode) {
+        String key = poolKey(language, gameMode);
+        List<PooledBoard> pool = readPool(key);
+        if (pool.isEmpty()) {
+            return null;
+        }
+
+        // The first board with enough words for this game mode, or failing that, the board with
+        // the most words (which was still the best of many more attempts than we can afford to
+        // make while the user is waiting).
+        PooledBoard chosen = null;
+        for (PooledBoard board : pool) {
+            if (board.getWordCount() >= gameMode.getMinWordsOnBoard()) {
+                chosen = board;
+                break;
+            }
+
+            if (chosen == null || board.getWordCount() > chosen.getWordCount()) {
+                chosen = board;
+            }
+        }
+
+        pool.remove(chosen);
+        writePool(key, pool);
+
+        Board board = chosen.toBoard(createCharProbGenerator(context, language));
+        if (board == null) {
+            Log.w(TAG, "Board " + chosen.getId() + " from the pool has different letters when regenerated, so discarding all pooled " + language.getName() + " boards.");
+            clearPools(language);
+            return null;
+        }
+
+        Log.d(TAG, "Took board " + chosen.getId() + " with " + chosen.getWordCount() + " words from the pool");
+        return board;
+    }
+
+    /**
+     * Generates up to {@param maxAttempts} boards, stopping as soon as one has at least
+     * {@link GameMode#getMinWordsOnBoard()} words, and returns the board with the most words.
+     */
+    private PooledBoard generateBestBoard(CharProbGenerator generator, Language language, GameMode gameMode, int maxAttempts) {
+        PooledBoard best = null;
+        for (int attempt = 0; attempt < maxAttempts && (best == null || best.getWordCount() < gameMode.getMinWordsOnBoard()); attempt++) {
+            Board board = generator.generateBoard(gameMode.getBoardSize(), random.nextLong());
+            int wordCount = countWords(language, board, gameMode.getMinWordLength());
+            if (best == null || wordCount > best.getWordCount()) {
+                best = new PooledBoard(board.getId(), board.toString(), wordCount);
+            }
+        }
+
+        Log.d(TAG, "Generated board " + best.getId() + " with " + best.getWordCount() + " words");
+        return best;
+    }
+
+    private int countWords(Language language, Board board, int minWordLength) {
+        try {
+            return Dictionaries.getInstance(context).load(language, board).countWords(board, minWordLength);
+        } catch (IOException e) {
+            Log.e(TAG, "Error counting words on board", e);
+            return 0;
+        }
+    }
+
+    static CharProbGenerator createCharProbGenerator(Context context, Language language) {
+        String lettersFileName = language.getLetterDistributionFileName();
+        int id = context.getResources().getIdentifier("raw/" + lettersFileName.substring(0, lettersFileName.lastIndexOf('.')), null, context.getPackageName());
+        return new CharProbGenerator(context.getResources().openRawResource(id), language);
+    }
+
+    private synchronized void clearPools(Language language) {
+        SharedPreferences.Editor editor = prefs.edit();
+        for (String key : prefs.getAll().keySet()) {
+            if (key.startsWith(language.getName() + PooledBoard.SEPARATOR)) {
+                editor.remove(key);
+            }
+        }
+        editor.apply();
+    }
+
+    private List<PooledBoard> readPool(String key) {
+        return PooledBoard.parseAll(prefs.getString(key, ""));
+    }
+
+    private void writePool(String key, List<PooledBoard> pool) {
+        prefs.edit().putString(key, PooledBoard.toString(pool)).apply();
+    }
+
+    private static String poolKey(Language language, GameMode gameMode) {
+        return language.getName() + PooledBoard.SEPARATOR + gameMode.getBoardSize() + PooledBoard.SEPARATOR + gameMode.getMinWordLength();
+    }
+
+    /**
+     * A board which has been generated and had its words counted, but not yet been solved.
+     */
+    static class PooledBoard {
+
+        static final char SEPARATOR = ' ';
+        private static final String LINE_SEPARATOR = "\n";
+
+        private final BoardId id;
+        private final String letters;
+        private final int wordCount;
+
+        PooledBoard(BoardId id, String letters, int wordCount) {
+            this.id = id;
+            this.letters = letters;
+            this.wordCount = wordCount;
+        }
+
+        BoardId getId() {
+            return id;
+        }
+
+        int getWordCount() {
+            return wordCount;
+        }
+
+        /**
+         * Regenerates this board from its id, but only if the letters are the same as when it
+         * was added to the pool (the letter distribution may have changed since, e.g. after an
+         * update).
+         */
+        @Nullable
+        Board toBoard(CharProbGenerator generator) {
+            Board board = generator.generateBoard(id);
+            return letters.equals(board.toString()) ? board : null;
+        }
+
+        @Override
+        public String toString() {
+            return id.toString() + SEPARATOR + wordCount + SEPARATOR + letters;
+        }
+
+        static String toString(List<PooledBoard> boards) {
+            StringBuilder sb = new StringBuilder();
+            for (PooledBoard board : boards) {
+                if (sb.length() > 0) {
+                    sb.append(LINE_SEPARATOR);
+                }
+                sb.append(board);
+            }
+            return sb.toString();
+        }
+
+        /**
+         * Anything which can't be parsed is skipped, as it is easy enough to generate another
+         * board to replace it.
+         */
+        static List<PooledBoard> parseAll(String value) {
+            List<PooledBoard> boards = new ArrayList<>();
+            for (String line : value.split(LINE_SEPARATOR)) {
+                List<String> parts = Arrays.asList(line.split(String.valueOf(SEPARATOR)));
+                if (parts.size() != 3) {
+                    continue;
+                }
+
+                try {
+                    boards.add(new PooledBoard(BoardId.parse(parts.get(0)), parts.get(2), Integer.parseInt(parts.get(1))));
+                } catch (IllegalArgumentException e) {
+                    // Includes NumberFormatException.
+                }
+            }
+            return boards;
+        }
+    }
+
+}
@@ -0,0 +1,84 @@
+package com.serwylo.lexica.game;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.util.Log;
+
+import com.serwylo.lexica.lang.Language;
+import com.serwylo.lexica.trie.util.TrieCache;
+
+/**
+ * Process wide {@link TrieCache} for the dictionaries bundled as raw resources, so that starting
+ * a new game (or retrying a board with too few words) doesn't read the whole dictionary again.
+ * <p>
+ * The cache is emptied when Android asks us to trim our memory usage, and everything other than
+ * the newly selected language is dropped when the user chooses a different language.
+ */
+public class Dictionaries {
+
+    private static final String TAG = "Dictionaries";
+
+    /**
+     * Large enough for the biggest of the bundled dictionaries, plus one or two others if the
+     * user is switching back and forth between languages.
+     */
+    private static final long MAX_CACHE_BYTES = 12 * 1024 * 1024;
+
+    private static TrieCache instance;
+
+    public static synchronized TrieCache getInstance(Context context) {
+        if (instance == null) {
+            Context appContext = context.getApplicationContext();
+            instance = new TrieCache(language -> appContext.getResources().openRawResource(getRawResourceId(appContext, language)), MAX_CACHE_BYTES);
+            appContext.registerComponentCallbacks(new TrimMemoryCallbacks(instance));
+        }
+
+        return instance;
+    }
+
+    /**
+     * Frees any cached dictionaries other than {@param language}, which is about to become the
+     * only language in use.
+     */
+    public static synchronized void onLanguageChanged(Language language) {
+        if (instance != null) {
+            instance.evictAllExcept(language);
+        }
+    }
+
+    private static int getRawResourceId(Context context, Language language) {
+        String trieFileName = language.getTrieFileName();
+        return context.getResources().getIdentifier("raw/" + trieFileName.substring(0, trieFileName.lastIndexOf('.')), null, context.getPackageName());
+    }
+
+    private static class TrimMemoryCallbacks implements ComponentCallbacks2 {
+
+        private final TrieCache cache;
+
+        TrimMemoryCallbacks(TrieCache cache) {
+            this.cache = cache;
+        }
+
+        @Override
+        public void onTrimMemory(int level) {
+            // Hang on to the dictionary if the system is only moderately low on memory, because
+            // re-reading it is exactly what this cache is trying to avoid. Anything more severe
+            // (including our UI being hidden) is reason enough to let it go.
+            if (level >= TRIM_MEMORY_RUNNING_LOW) {
+                Log.d(TAG, "Clearing " + cache.sizeInBytes() + " bytes of cached dictionaries (trim level " + level + ")");
+                cache.clear();
+            }
+        }
+
+        @Override
+        public void onLowMemory() {
+            cache.clear();
+        }
+
+        @Override
+        public void onConfigurationChanged(Configuration newConfig) {
+        }
+    }
+
+}
@@ -23,7 +23,6 @@ import android.content.SharedPreferences;
 import android.media.AudioManager;
 import android.media.SoundPool;
 import android.util.Log;
-import android.util.SparseIntArray;
 
 import androidx.preference.PreferenceManager;
 
@@ -35,62 +34,32 @@ import com.serwylo.lexica.db.GameMode;
 import com.serwylo.lexica.lang.Language;
 
 import net.healeys.trie.Solution;
-import net.healeys.trie.StringTrie;
 import net.healeys.trie.Trie;
 
 import java.io.IOException;
-import java.util.Date;
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.Iterator;
-import java.util.LinkedHashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 
+/**
+ * A game as played in the app. The rules themselves are in {@link GameEngine}, and this adds the
+ * parts which need Android: Loading the board and dictionary, preferences, sounds and saving.
+ */
 public class Game implements Synchronizer.Counter {
 
     private static final String TAG = "Game";
-    private int timeRemaining;
-    private int maxTime;
-
-    private int maxTimeRemaining;
-
-    private Board board;
-    private int score;
-
-    public enum GameStatus {GAME_STARTING, GAME_RUNNING, GAME_PAUSED, GAME_FINISHED}
-
-    private static int[] weights;
 
-    private static final int[] WORD_POINTS = {0, 0, 0, // 0,1,2
-            1, 1, 2, // 3,4,5
-            3, 5, 8, // 6,7,8
-            13, 21, 34, // 9,10,11
-            55, 89, 144, // 12,13,14
-            233, 377, 610, //14,15,16
-            987, 1597, 2584, // 17,18,19
-            4181, 6765, 10946, // 20,21,22
-            17711, 28657, 46368, // 23,24,25
-    };
+    private GameEngine engine;
 
-    private GameStatus status;
     private RotateHandler mRotateHandler;
 
-    private LinkedList<String> wordList;
-    private LinkedHashSet<String> wordsUsed;
-    private int wordCount;
-    private final SparseIntArray wordCountsByLength = new SparseIntArray();
-    private final SparseIntArray maxWordCountsByLength = new SparseIntArray();
-
-    private Date start;
     private final Context context;
 
     private Language language;
-    private int boardSize; // using an int so I can use much larger boards later
     private int minWordLength;
-
-    private Map<String, List<Solution>> solutions;
+    private int maxTimeRemaining;
 
     private AudioManager mgr;
     private SoundPool mSoundPool;
@@ -98,94 +67,100 @@ public class Game implements Synchronizer.Counter {
 
     private GameMode gameMode;
 
-    public Game(Context c, GameSaver saver) {
+    /**
+     * Only set while the constructor is running, see {@link LoadingListener}.
+     */
+    private LoadingListener loadingListener;
+
+    public Game(Context c, GameSaver saver) throws RestoreFailed {
+        this(c, saver, null);
+    }
+
+    public Game(Context c, GameSaver saver, LoadingListener loadingListener) throws RestoreFailed {
+        this.loadingListener = loadingListener;
 
         gameMode = saver.readGameMode();
-        status = GameStatus.GAME_STARTING;
-        wordCount = 0;
 
         context = c;
         loadPreferences(c, gameMode);
 
         try {
-            switch (saver.readBoardSize()) {
-                case 16:
-                    setBoard(new FourByFourBoard(saver.readGameBoard()));
-                    break;
-                case 25:
-                    setBoard(new FiveByFiveBoard(saver.readGameBoard()));
-                    break;
-                case 36:
-                    setBoard(new SixBySixBoard(saver.readGameBoard()));
-                    break;
-            }
-
-            maxTimeRemaining = saver.readGameMode().getTimeLimitSeconds();
-            timeRemaining = saver.readTimeRemaining();
-            maxTime = timeRemaining;
-            start = saver.readStart();
-
-            String[] wordArray = saver.readWords();
-            wordList = new LinkedList<>();
-            wordsUsed = new LinkedHashSet<>();
-            for (String word : wordArray) {
-                if (!word.startsWith("+")) {
-                    if (isWord(word)) {
-                        score += getWordScore(word);
-                        wordCountsByLength.put(word.length(), wordCountsByLength.get(word.length()) + 1);
-                    }
-                    wordsUsed.add(word);
+            Board board = restoreBoard(saver);
+            engine = new GameEngine(language, board, findSolutions(board), scoreType(gameMode), saver.readGameMode().getTimeLimitSeconds(), GameEngine.Clock.SYSTEM);
+            engine.restore(saver.readWords(), saver.readWordCount(), saver.readTimeRemaining(), saver.readStart(), saver.readStatus());
+
+            // A regenerated board is solved before being rotated, as for a new game.
+            if (board.getId() != null) {
+                for (int i = 0; i < saver.readBoardRotations(); i++) {
+                    board.rotate();
                 }
-                wordList.add(word);
             }
-            wordCount = saver.readWordCount();
-
-            status = saver.readStatus();
-            initializeWeights();
         } catch (Exception e) {
-            Log.e(TAG, "Error Restoring Saved Game", e);
-            status = GameStatus.GAME_FINISHED;
+            throw new RestoreFailed(e);
+        } finally {
+            this.loadingListener = null;
         }
     }
 
     public Game(Context c, GameMode gameMode) {
+        this(c, gameMode, null);
+    }
+
+    public Game(Context c, GameMode gameMode, LoadingListener loadingListener) {
+        this.loadingListener = loadingListener;
         this.gameMode = gameMode;
-        status = GameStatus.GAME_STARTING;
-        wordCount = 0;
-        wordList = new LinkedList<>();
 
         context = c;
         loadPreferences(c, gameMode);
 
-        String lettersFileName = language.getLetterDistributionFileName();
-        int id = context.getResources().getIdentifier("raw/" + lettersFileName.substring(0, lettersFileName.lastIndexOf('.')), null, context.getPackageName());
-        CharProbGenerator charProbs = new CharProbGenerator(c.getResources().openRawResource(id), getLanguage());
-        Board board;
+        onLoadingStage(LoadingStage.GENERATING_BOARD);
+        Board board = BoardPool.getInstance(c).takeBoard(language, gameMode);
+        engine = new GameEngine(language, board, findSolutions(board), scoreType(gameMode), maxTimeRemaining, GameEngine.Clock.SYSTEM);
 
-        switch (boardSize) {
-            case 16:
-                board = charProbs.generateFourByFourBoard();
-                break;
+        this.loadingListener = null;
+    }
 
-            case 25:
-                board = charProbs.generateFiveByFiveBoard();
-                break;
+    private static GameEngine.ScoreType scoreType(GameMode gameMode) {
+        return GameMode.SCORE_WORDS.equals(gameMode.getScoreType()) ? GameEngine.ScoreType.WORDS : GameEngine.ScoreType.LETTERS;
+    }
 
-            case 36:
-                board = charProbs.generateSixBySixBoard();
-                break;
+    private void onLoadingStage(LoadingStage stage) {
+        if (loadingListener != null) {
+            loadingListener.onLoadingStage(stage);
+        }
+    }
+
+    /**
+     * If the saved game has a {@link BoardId}, regenerate the board from that (so that it keeps
+     * its id, along with the original position of each tile). This is only trusted if it results
+     * in exactly the same letters as were saved, because the letter distribution may have changed
+     * since (e.g. after an update). Otherwise, fall back to the saved letters.
+     * <p>
+     * A regenerated board is not yet rotated, see {@link CharProbGenerator#regenerateBoard(BoardId, int, String[])}.
+     */
+    private Board restoreBoard(GameSaver saver) {
+        String[] letters = saver.readGameBoard();
+
+        BoardId id = saver.readBoardId();
+        if (id != null && id.getLanguageName().equals(language.getName()) && id.getSize() == letters.length) {
+            Board board = BoardPool.createCharProbGenerator(context, language).regenerateBoard(id, saver.readBoardRotations(), letters);
+            if (board != null) {
+                return board;
+            }
+
+            Log.w(TAG, "Regenerating board " + id + " resulted in different letters to those saved, so using the saved letters instead.");
+        }
 
+        switch (saver.readBoardSize()) {
+            case 16:
+                return new FourByFourBoard(letters);
+            case 25:
+                return new FiveByFiveBoard(letters);
+            case 36:
+                return new SixBySixBoard(letters);
             default:
                 throw new IllegalStateException("Board must be 16, 25, or 36 large");
         }
-
-        setBoard(board);
-
-        timeRemaining = getMaxTimeRemaining();
-        maxTime = getMaxTimeRemaining();
-        score = 0;
-        wordsUsed = new LinkedHashSet<>();
-        initializeWeights();
     }
 
     public GameMode getGameMode() {
@@ -214,19 +189,12 @@ public class Game implements Synchronizer.Counter {
         }
     }
 
-    public void setBoard(Board b) {
-        board = b;
-        boardSize = b.getSize();
-        initializeDictionary();
-    }
-
     private void loadPreferences(Context c, GameMode gameMode) {
         SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(c);
 
         language = new Util().getSelectedLanguageOrDefault(context);
         Log.d(TAG, "Language (from preferences): " + language.getName());
 
-        boardSize = gameMode.getBoardSize();
         minWordLength = gameMode.getMinWordLength();
         maxTimeRemaining = 100 * gameMode.getTimeLimitSeconds();
 
@@ -236,165 +204,75 @@ public class Game implements Synchronizer.Counter {
     }
 
     public void initializeDictionary() {
-        initializeDictionary(language);
+        engine.setSolutions(findSolutions(engine.getBoard()));
     }
 
-    private void initializeDictionary(Language language) {
+    /**
+     * @return Every word on {@param board} which counts in this game mode, or none if the
+     * dictionary couldn't be loaded.
+     */
+    private Map<String, List<Solution>> findSolutions(Board board) {
         try {
-            String trieFileName = language.getTrieFileName();
-            int id = context.getResources().getIdentifier("raw/" + trieFileName.substring(0, trieFileName.lastIndexOf('.')), null, context.getPackageName());
-            Trie dict = new StringTrie.Deserializer().deserialize(context.getResources().openRawResource(id), board, language);
+            onLoadingStage(LoadingStage.LOADING_DICTIONARY);
+            Trie dict = Dictionaries.getInstance(context).load(language, board);
 
-            solutions = dict.solver(board, w -> w.length() >= minWordLength);
+            onLoadingStage(LoadingStage.FINDING_WORDS);
+            Map<String, List<Solution>> solutions = dict.solver(board, w -> w.length() >= minWordLength);
 
             Log.d(TAG, "Initializing " + language.getName() + " dictionary");
-            for (String word : solutions.keySet()) {
-                maxWordCountsByLength.put(word.length(), maxWordCountsByLength.get(word.length()) + 1);
-
-                // For debugging and diagnosis, it is convenient to have access to all the words
-                // for some boards printed to the log. This is especially true seeing as I can only
-                // speak / read English, and thus am unable to play the boards of additional
-                // languages without this aid. Once they go out of beta, then it seems inappropriate
-                // to print this.
-                if (language.isBeta()) {
+
+            // For debugging and diagnosis, it is convenient to have access to all the words
+            // for some boards printed to the log. This is especially true seeing as I can only
+            // speak / read English, and thus am unable to play the boards of additional
+            // languages without this aid. Once they go out of beta, then it seems inappropriate
+            // to print this.
+            if (language.isBeta()) {
+                for (String word : solutions.keySet()) {
                     Log.d(TAG, "Word: " + word.toUpperCase(getLanguage().getLocale()));
                 }
             }
+
+            return solutions;
         } catch (IOException e) {
             Log.e(TAG, "Error initializing dictionary", e);
-        }
-    }
-
-    /**
-     * Initialize tile weights.
-     * <p>
-     * For each tile, count how many words that tile can be used for.
-     */
-    private void initializeWeights() {
-        weights = new int[boardSize];
-
-        for (Map.Entry<String, List<Solution>> entry : solutions.entrySet()) {
-            // If we're restoring a game and the word was already used, don't include
-            // it in the weights
-            if (wordList.contains(entry.getKey()) || wordList.contains("+" + entry.getKey())) {
-                continue;
-            }
-
-            // Handle multiple paths for the same word by keeping track of positions
-            // already incremented.
-            HashSet<Integer> seen = new HashSet<>();
-            for (Solution sol : entry.getValue()) {
-                for (int pos : sol.getPositions()) {
-                    if (!seen.contains(pos)) {
-                        seen.add(pos);
-                        weights[pos]++;
-                    }
-                }
-            }
-        }
-    }
-
-    /**
-     * Removes the tile weights for the given word
-     *
-     * @param word Word to remove tile weights for.
-     */
-    private void removeWeight(String word) {
-        // Handle multiple paths for the same word by keeping track of positions
-        // already decremented.
-        HashSet<Integer> seen = new HashSet<>();
-        for (Solution sol : solutions.get(word)) {
-            for (Integer pos : sol.getPositions()) {
-                if (!seen.contains(pos)) {
-                    seen.add(pos);
-                    weights[pos]--;
-                }
-            }
+            return Collections.emptyMap();
         }
     }
 
     public void save(GameSaver saver) {
-        saver.save(board, timeRemaining, gameMode, wordListToString(), wordCount, start, status);
+        saver.save(engine.getBoard(), engine.getTimeRemaining(), gameMode, engine.wordListToString(), engine.getWordCount(), engine.getStart(), engine.getStatus());
     }
 
     public void start() {
-        if (status == GameStatus.GAME_STARTING) {
-            start = new Date();
-            status = GameStatus.GAME_RUNNING;
-        }
-    }
-
-    private String wordListToString() {
-        StringBuilder sb = new StringBuilder();
-        ListIterator<String> li = wordList.listIterator();
-
-        while (li.hasNext()) {
-            String w = li.next();
-            sb.append(w);
-            if (li.hasNext()) {
-                sb.append(",");
-            }
-        }
-
-        return sb.toString();
+        engine.start();
     }
 
     public void addWord(String word) {
-        if (status != GameStatus.GAME_RUNNING) {
-            return;
-        }
-        String cap = word.toLowerCase(language.getLocale());
+        switch (engine.addWord(word)) {
+            case NEW_WORD:
+                playSound(0);
+                break;
 
-        if (isWord(cap)) {
-            if (wordsUsed.contains(cap)) {
-                // Word has been found before
-                wordList.addFirst("+" + word);
+            case ALREADY_FOUND:
                 playSound(1);
-            } else {
-                // Word has not been found before
-                wordCount++;
-                score += getWordScore(cap);
-                wordCountsByLength.put(cap.length(), wordCountsByLength.get(cap.length()) + 1);
-                wordList.addFirst(word);
-                playSound(0);
-                removeWeight(cap);
+                break;
 
-                if (wordCount == solutions.size()) {
-                    endNow();
-                }
-            }
-        } else {
-            // Word is not really a word
-            wordList.addFirst(word);
-            playSound(2);
+            case NOT_A_WORD:
+                playSound(2);
+                break;
         }
-        wordsUsed.add(cap);
     }
 
     public int getWordScore(String word) {
-        if (GameMode.SCORE_WORDS.equals(gameMode.getScoreType())) {
-            return WORD_POINTS[word.length()];
-        } else {
-            int score = 0;
-            for (int i = 0; i < word.length(); i++) {
-                // Manually iterating over characters of a word here, so we are responsible for ensuring that any
-                // mandatory suffix is applied for each letter.
-                String letter = language.applyMandatorySuffix(String.valueOf(word.charAt(i)).toLowerCase());
-                score += language.getPointsForLetter(letter);
-
-                // Advance the counter so that we can skip over any suffixes.
-                i += letter.length() - 1;
-            }
-            return score;
-        }
+        return engine.getWordScore(word);
     }
 
     public int getWordCount() {
-        return wordCount;
+        return engine.getWordCount();
     }
 
     public int getScore() {
-        return score;
+        return engine.getScore();
     }
 
     public String getScoreType() {
@@ -402,21 +280,15 @@ public class Game implements Synchronizer.Counter {
     }
 
     public int getMaxWordCount() {
-        return solutions.size();
+        return engine.getMaxWordCount();
     }
 
     public int getWeight(int pos) {
-        return weights[pos];
+        return engine.getWeight(pos);
     }
 
     public int getMaxWeight() {
-        int max = 0;
-        for (int weight : weights) {
-            if (weight > max) {
-                max = weight;
-            }
-        }
-        return max;
+        return engine.getMaxWeight();
     }
 
     public boolean hintModeCount() {
@@ -428,65 +300,53 @@ public class Game implements Synchronizer.Counter {
     }
 
     public ListIterator<String> listIterator() {
-        return wordList.listIterator();
+        return engine.listIterator();
     }
 
     public Iterator<String> uniqueListIterator() {
-        return wordsUsed.iterator();
+        return engine.uniqueListIterator();
     }
 
     public boolean isWord(String word) {
-        return solutions.containsKey(word);
+        return engine.isWord(word);
     }
 
     public Board getBoard() {
-        return board;
+        return engine.getBoard();
     }
 
     public int tick() {
-        timeRemaining--;
-        if (timeRemaining <= 0) {
-            status = GameStatus.GAME_FINISHED;
-            timeRemaining = 0;
-        } else {
-            Date now = new Date();
-            timeRemaining = Math.max(0, maxTime - (int) (now.getTime() - start.getTime()) / 10);
-        }
-        return timeRemaining;
+        return engine.tick();
     }
 
-    public GameStatus getStatus() {
-        return status;
+    public GameEngine.GameStatus getStatus() {
+        return engine.getStatus();
     }
 
     public void pause() {
-        if (status == GameStatus.GAME_RUNNING)
-            status = GameStatus.GAME_PAUSED;
+        engine.pause();
     }
 
     public void unpause() {
-        status = GameStatus.GAME_RUNNING;
-        maxTime = timeRemaining;
-        start = new Date();
+        engine.unpause();
     }
 
     public void endNow() {
-        // Log.d(TAG,"endNow");
-        timeRemaining = 0;
+        engine.endNow();
     }
 
     public Map<String, List<Solution>> getSolutions() {
-        return solutions;
+        return engine.getSolutions();
     }
 
     public void rotateBoard() {
-        board.rotate();
+        engine.getBoard().rotate();
         if (mRotateHandler != null)
             mRotateHandler.onRotate();
     }
 
     public int getMaxTimeRemaining() {
-        return maxTimeRemaining;
+        return engine.getMaxTimeRemaining();
     }
 
     public void setRotateHandler(RotateHandler rh) {
@@ -496,5 +356,24 @@ public class Game implements Synchronizer.Counter {
     public interface RotateHandler {
         void onRotate();
     }
-}
 
+    public enum LoadingStage {GENERATING_BOARD, LOADING_DICTIONARY, FINDING_WORDS}
+
+    /**
+     * Thrown when a saved game can't be restored, e.g. because it was saved by an older version
+     * which saved something different.
+     */
+    public static class RestoreFailed extends Exception {
+        RestoreFailed(Throwable cause) {
+            super("Error restoring saved game", cause);
+        }
+    }
+
+    /**
+     * Told about each of the slow parts of setting up a game, which happen in the constructor.
+     * Called on whichever thread the {@link Game} is being constructed on.
+     */
+    public interface LoadingListener {
+        void onLoadingStage(LoadingStage stage);
+    }
+}
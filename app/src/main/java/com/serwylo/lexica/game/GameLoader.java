@@ -0,0 +1,91 @@
+package com.serwylo.lexica.game;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Constructs a {@link Game} on a background thread, because generating a board, loading the
+ * dictionary and then solving the board is too slow to do on the UI thread.
+ * <p>
+ * All {@link Callback} methods are called on the UI thread, and none of them are called once
+ * {@link #cancel()} has been called (e.g. because the activity waiting for the game has been
+ * destroyed).
+ */
+public class GameLoader {
+
+    private static final String TAG = "GameLoader";
+
+    /**
+     * Shared by all loaders, so that a game which is still being loaded for a destroyed activity
+     * can't compete with the game being loaded for its replacement.
+     */
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    public interface GameFactory {
+        Game create(Game.LoadingListener listener) throws Exception;
+    }
+
+    public interface Callback {
+        void onLoadingStage(Game.LoadingStage stage);
+
+        void onLoaded(Game game);
+
+        void onError(Exception e);
+    }
+
+    private final Handler mainThread = new Handler(Looper.getMainLooper());
+
+    /**
+     * Identifies the most recent call to {@link #load(GameFactory, Callback)}. Results from any
+     * earlier (or cancelled) load are dropped.
+     */
+    private volatile Object currentLoad;
+    private Future<?> task;
+
+    public void load(GameFactory factory, Callback callback) {
+        cancel();
+
+        Object load = new Object();
+        currentLoad = load;
+        task = executor.submit(() -> {
+            long startTime = System.currentTimeMillis();
+            try {
+                Game game = factory.create(stage -> post(load, () -> callback.onLoadingStage(stage)));
+                Log.d(TAG, "Loaded game in " + (System.currentTimeMillis() - startTime) + "ms");
+                post(load, () -> callback.onLoaded(game));
+            } catch (Exception e) {
+                post(load, () -> callback.onError(e));
+            }
+        });
+    }
+
+    /**
+     * The game may still finish loading in the background, but it will be thrown away.
+     */
+    public void cancel() {
+        currentLoad = null;
+        if (task != null) {
+            task.cancel(true);
+            task = null;
+        }
+    }
+
+    private void post(Object load, Runnable runnable) {
+        if (currentLoad != load) {
+            return;
+        }
+
+        mainThread.post(() -> {
+            // Check again, in case this was cancelled after being posted.
+            if (currentLoad == load) {
+                runnable.run();
+            }
+        });
+    }
+
+}
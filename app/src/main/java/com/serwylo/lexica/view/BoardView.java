@@ -31,10 +31,6 @@ import com.serwylo.lexica.R;
 import com.serwylo.lexica.db.GameMode;
 import com.serwylo.lexica.game.Game;
 
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Set;
-
 public class BoardView extends View {
 
     @SuppressWarnings("unused")
@@ -50,7 +46,7 @@ public class BoardView extends View {
     private float boxsize;
     private int boardWidth;
     private final Paint p;
-    private Set<Integer> highlightedPositions = new HashSet<>();
+    private int[] highlightedPositions = new int[0];
     private int maxWeight;
 
     public BoardView(Context context) {
@@ -91,9 +87,17 @@ public class BoardView extends View {
         boardWidth = game.getBoard().getWidth();
     }
 
-    public void highlight(Integer[] highlightedPositions) {
-        this.highlightedPositions = new HashSet<>();
-        this.highlightedPositions.addAll(Arrays.asList(highlightedPositions));
+    public void highlight(int[] highlightedPositions) {
+        this.highlightedPositions = highlightedPositions;
+    }
+
+    private boolean isHighlighted(int position) {
+        for (int highlighted : highlightedPositions) {
+            if (highlighted == position) {
+                return true;
+            }
+        }
+        return false;
     }
 
     private void setDimensions(int w, int h) {
@@ -118,7 +122,7 @@ public class BoardView extends View {
             int x = i % game.getBoard().getWidth();
             int y = i / game.getBoard().getWidth();
 
-            if (highlightedPositions.contains(i)) {
+            if (isHighlighted(i)) {
                 p.setColor(theme.board.tile.highlightColour);
             } else {
                 if (game.hintModeColor()) {
@@ -35,6 +35,7 @@ import com.serwylo.lexica.R;
 import com.serwylo.lexica.Synchronizer;
 import com.serwylo.lexica.db.GameMode;
 import com.serwylo.lexica.game.Game;
+import com.serwylo.lexica.game.GameEngine;
 
 import java.util.Arrays;
 import java.util.HashMap;
@@ -444,7 +445,7 @@ public class LexicaView extends View implements Synchronizer.Event, Game.RotateH
 
         canvas.drawColor(theme.scoreScreenBackgroundColour);
 
-        if (game.getStatus() != Game.GameStatus.GAME_RUNNING)
+        if (game.getStatus() != GameEngine.GameStatus.GAME_RUNNING)
             return;
 
         boolean isRtl = isLayoutRtl(); // For performance, don't constantly ask this while drawing.
@@ -0,0 +1,49 @@
+package com.serwylo.lexica;
+
+import com.serwylo.lexica.game.BoardId;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class BoardIdTest {
+
+    @Test
+    public void roundTrip() {
+        for (String languageName : new String[]{"en_US", "fa", "de_DE_no_diacritics", "with:colon"}) {
+            for (long seed : new long[]{0, 1, -1, Long.MIN_VALUE, Long.MAX_VALUE}) {
+                BoardId id = new BoardId(languageName, 25, seed);
+                BoardId parsed = BoardId.parse(id.toString());
+                assertEquals(id, parsed);
+                assertEquals(id.hashCode(), parsed.hashCode());
+                assertEquals(languageName, parsed.getLanguageName());
+                assertEquals(25, parsed.getSize());
+                assertEquals(seed, parsed.getSeed());
+            }
+        }
+    }
+
+    @Test
+    public void format() {
+        assertEquals("en_US:16:ff", new BoardId("en_US", 16, 255).toString());
+        assertEquals("en_US:16:ffffffffffffffff", new BoardId("en_US", 16, -1).toString());
+        assertNotEquals(new BoardId("en_US", 16, 1), new BoardId("en_GB", 16, 1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void missingSeed() {
+        BoardId.parse("en_US:16");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidSize() {
+        BoardId.parse("en_US:big:ff");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void seedTooLong() {
+        BoardId.parse("en_US:16:1ffffffffffffffff");
+    }
+
+}
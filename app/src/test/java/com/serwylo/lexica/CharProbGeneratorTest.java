@@ -0,0 +1,156 @@
+package com.serwylo.lexica;
+
+import com.serwylo.lexica.game.Board;
+import com.serwylo.lexica.game.BoardId;
+import com.serwylo.lexica.game.CharProbGenerator;
+import com.serwylo.lexica.lang.Language;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+@RunWith(Parameterized.class)
+public class CharProbGeneratorTest {
+
+    private final Language language;
+
+    public CharProbGeneratorTest(Language language) {
+        super();
+        this.language = language;
+    }
+
+    @Parameterized.Parameters(name = "Language: {index} {0}")
+    public static List<Language[]> getAllLanguages() {
+        List<Language[]> langs = new ArrayList<>(Language.getAllLanguages().size());
+        for (Language lang : Language.getAllLanguages().values()) {
+            langs.add(new Language[]{lang});
+        }
+        return langs;
+    }
+
+    /**
+     * Given the same random numbers, boards should be identical to those generated by the original
+     * linear scan over each letter (see {@link #generateBoardByLinearScan(int, Random)}), which
+     * implies that they also have the same distribution.
+     */
+    @Test
+    public void sameBoardsAsLinearScan() throws IOException {
+        CharProbGenerator generator = new CharProbGenerator(openLetterDistribution(), language);
+        for (long seed = 0; seed < 200; seed++) {
+            assertArrayEquals("4x4 board with seed " + seed, generateBoardByLinearScan(16, new Random(seed)), toArray(generator.generateFourByFourBoard(new Random(seed))));
+            assertArrayEquals("5x5 board with seed " + seed, generateBoardByLinearScan(25, new Random(seed)), toArray(generator.generateFiveByFiveBoard(new Random(seed))));
+            assertArrayEquals("6x6 board with seed " + seed, generateBoardByLinearScan(36, new Random(seed)), toArray(generator.generateSixBySixBoard(new Random(seed))));
+        }
+    }
+
+    @Test
+    public void seededBoardsCanBeRegenerated() {
+        CharProbGenerator generator = new CharProbGenerator(openLetterDistribution(), language);
+        for (int size : new int[]{16, 25, 36}) {
+            for (long seed : new long[]{0, 1, -1, Long.MIN_VALUE, Long.MAX_VALUE, 0x3f2a9c01d7e4b855L}) {
+                Board board = generator.generateBoard(size, seed);
+                BoardId id = board.getId();
+                assertEquals(new BoardId(language.getName(), size, seed), id);
+                assertEquals(size, board.getSize());
+
+                BoardId parsed = BoardId.parse(id.toString());
+                assertEquals(id, parsed);
+
+                Board regenerated = new CharProbGenerator(openLetterDistribution(), language).generateBoard(parsed);
+                assertArrayEquals("Board " + id, toArray(board), toArray(regenerated));
+            }
+        }
+    }
+
+    @Test
+    public void rotationsAreCounted() {
+        Board board = new CharProbGenerator(openLetterDistribution(), language).generateBoard(16, 1234);
+        String[] original = toArray(board);
+        for (int i = 1; i <= 4; i++) {
+            board.rotate();
+            assertEquals(i % 4, board.getRotations());
+        }
+        assertArrayEquals(original, toArray(board));
+    }
+
+    private InputStream openLetterDistribution() {
+        return getClass().getClassLoader().getResourceAsStream(language.getLetterDistributionFileName());
+    }
+
+    private static String[] toArray(Board board) {
+        String[] letters = new String[board.getSize()];
+        for (int i = 0; i < letters.length; i++) {
+            letters[i] = board.valueAt(i);
+        }
+        return letters;
+    }
+
+    /**
+     * The board generation algorithm from before letter weights were stored in a tree.
+     */
+    private String[] generateBoardByLinearScan(int size, Random rng) throws IOException {
+        List<String> letters = new ArrayList<>();
+        List<LinkedList<Integer>> queues = new ArrayList<>();
+
+        BufferedReader br = new BufferedReader(new InputStreamReader(openLetterDistribution()));
+        for (String line = br.readLine(); line != null; line = br.readLine()) {
+            if (line.length() == 0 || line.charAt(0) == '#') {
+                continue;
+            }
+
+            String[] chunks = line.toLowerCase(language.getLocale()).split(" ");
+            LinkedList<Integer> queue = new LinkedList<>();
+            for (int i = 1; i < chunks.length; i++) {
+                queue.add(Integer.valueOf(chunks[i]));
+            }
+            letters.add(language.applyMandatorySuffix(chunks[0]));
+            queues.add(queue);
+        }
+
+        int total = 0;
+        for (LinkedList<Integer> queue : queues) {
+            total += queue.isEmpty() ? 0 : queue.peek();
+        }
+
+        String[] board = new String[size];
+        for (int i = 0; i < size; i++) {
+            int chosen = -1;
+            int remaining = rng.nextInt(total);
+            for (int j = 0; j < queues.size(); j++) {
+                chosen = j;
+                int prob = queues.get(j).isEmpty() ? 0 : queues.get(j).peek();
+                remaining -= prob;
+                if (prob > 0 && remaining <= 0) {
+                    break;
+                }
+            }
+
+            LinkedList<Integer> queue = queues.get(chosen);
+            board[i] = letters.get(chosen);
+            total -= queue.isEmpty() ? 0 : queue.remove();
+            total += queue.isEmpty() ? 0 : queue.peek();
+        }
+
+        for (int to = 15; to > 0; to--) {
+            int from = rng.nextInt(to);
+            String tmp = board[to];
+            board[to] = board[from];
+            board[from] = tmp;
+        }
+
+        return board;
+    }
+
+}
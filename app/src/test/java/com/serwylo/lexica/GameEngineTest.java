@@ -0,0 +1,185 @@
+package com.serwylo.lexica;
+
+import com.serwylo.lexica.game.Board;
+import com.serwylo.lexica.game.CharProbGenerator;
+import com.serwylo.lexica.game.FourByFourBoard;
+import com.serwylo.lexica.game.GameEngine;
+import com.serwylo.lexica.lang.EnglishUS;
+import com.serwylo.lexica.lang.Language;
+
+import net.healeys.trie.StringTrie;
+import net.healeys.trie.WordFilter;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class GameEngineTest {
+
+    private static final Language LANGUAGE = new EnglishUS();
+
+    private static final String[] WORDS = {"cat", "car", "cart", "art", "rat", "tar", "dog"};
+
+    private long now = 0;
+
+    @Test
+    public void testScoringWords() {
+        GameEngine engine = engine(GameEngine.ScoreType.WORDS);
+        assertEquals(GameEngine.WordResult.NOT_RUNNING, engine.addWord("cat"));
+
+        engine.start();
+        assertEquals(GameEngine.WordResult.NEW_WORD, engine.addWord("cat"));
+        assertEquals(GameEngine.WordResult.NEW_WORD, engine.addWord("cart"));
+        assertEquals(GameEngine.WordResult.ALREADY_FOUND, engine.addWord("cat"));
+        assertEquals(GameEngine.WordResult.NOT_A_WORD, engine.addWord("dog"));
+
+        assertEquals(2, engine.getScore());
+        assertEquals(2, engine.getWordCount());
+        assertEquals(6, engine.getMaxWordCount());
+        assertEquals("dog,+cat,cart,cat", engine.wordListToString());
+    }
+
+    @Test
+    public void testScoringLetters() {
+        GameEngine engine = engine(GameEngine.ScoreType.LETTERS);
+        engine.start();
+        engine.addWord("cart");
+
+        int expected = 0;
+        for (String letter : new String[]{"c", "a", "r", "t"}) {
+            expected += LANGUAGE.getPointsForLetter(letter);
+        }
+        assertEquals(expected, engine.getScore());
+        assertEquals(expected, GameEngine.getWordScore("cart", GameEngine.ScoreType.LETTERS, LANGUAGE));
+    }
+
+    @Test
+    public void testWeightsCountWordsNotYetFound() {
+        GameEngine engine = engine(GameEngine.ScoreType.WORDS);
+        assertEquals("cat, car and cart all use the c", 3, engine.getWeight(0));
+        assertEquals("Every word uses the a", 6, engine.getMaxWeight());
+
+        engine.start();
+        engine.addWord("cat");
+        assertEquals(2, engine.getWeight(0));
+        assertEquals(5, engine.getMaxWeight());
+    }
+
+    @Test
+    public void testTimerFollowsClock() {
+        GameEngine engine = engine(GameEngine.ScoreType.WORDS);
+        engine.start();
+
+        now += 4000;
+        assertEquals(600, engine.tick());
+
+        // Time spent paused doesn't count.
+        engine.pause();
+        now += 100000;
+        engine.unpause();
+        now += 1000;
+        assertEquals(500, engine.tick());
+
+        now += 10000;
+        assertEquals(0, engine.tick());
+        engine.tick();
+        assertEquals(GameEngine.GameStatus.GAME_FINISHED, engine.getStatus());
+    }
+
+    @Test
+    public void testFindingEveryWordEndsGame() {
+        GameEngine engine = engine(GameEngine.ScoreType.WORDS);
+        engine.start();
+        for (String word : engine.getSolutions().keySet()) {
+            engine.addWord(word);
+        }
+
+        engine.tick();
+        assertEquals(GameEngine.GameStatus.GAME_FINISHED, engine.getStatus());
+    }
+
+    @Test
+    public void testRestore() {
+        GameEngine engine = engine(GameEngine.ScoreType.WORDS);
+        engine.start();
+        engine.addWord("cat");
+        engine.addWord("cat");
+        engine.addWord("dog");
+        engine.addWord("rat");
+        engine.pause();
+
+        GameEngine restored = engine(GameEngine.ScoreType.WORDS);
+        restored.restore(engine.wordListToString().split(","), engine.getWordCount(), engine.getTimeRemaining(), engine.getStart(), engine.getStatus());
+
+        assertEquals(engine.getScore(), restored.getScore());
+        assertEquals(engine.getWordCount(), restored.getWordCount());
+        assertEquals(engine.wordListToString(), restored.wordListToString());
+        assertEquals(GameEngine.GameStatus.GAME_PAUSED, restored.getStatus());
+        for (int i = 0; i < engine.getBoard().getSize(); i++) {
+            assertEquals("Weight of tile " + i, engine.getWeight(i), restored.getWeight(i));
+        }
+    }
+
+    /**
+     * Tile weights are indexed by where each tile was before the board was rotated (see
+     * {@link Board#getRotatedPosition(int)}), so must still be after restoring a rotated board.
+     */
+    @Test
+    public void testRestoreRotatedBoard() {
+        CharProbGenerator generator = new CharProbGenerator(getClass().getClassLoader().getResourceAsStream(LANGUAGE.getLetterDistributionFileName()), LANGUAGE);
+        StringTrie trie = new StringTrie(LANGUAGE);
+        for (String word : FullUsGbTrieTest.readDictionary(LANGUAGE)) {
+            trie.addWord(word);
+        }
+
+        Board board = generator.generateBoard(16, 1234);
+        GameEngine engine = new GameEngine(LANGUAGE, board, trie.solver(board, new WordFilter.MinLength(3)), GameEngine.ScoreType.WORDS, 1000, () -> now);
+        assertTrue("Need some words for the weights to mean anything", engine.getMaxWordCount() > 10);
+        engine.start();
+        engine.addWord(engine.getSolutions().keySet().iterator().next());
+        board.rotate();
+        engine.pause();
+
+        // As saved by a GameSaver.
+        String[] letters = board.toString().split(",");
+        int rotations = board.getRotations();
+
+        assertNull("Different letters", generator.regenerateBoard(board.getId(), rotations + 1, letters));
+
+        // As restored by Game.
+        Board restoredBoard = generator.regenerateBoard(board.getId(), rotations, letters);
+        GameEngine restored = new GameEngine(LANGUAGE, restoredBoard, trie.solver(restoredBoard, new WordFilter.MinLength(3)), GameEngine.ScoreType.WORDS, 1000, () -> now);
+        restored.restore(engine.wordListToString().split(","), engine.getWordCount(), engine.getTimeRemaining(), engine.getStart(), engine.getStatus());
+        for (int i = 0; i < rotations; i++) {
+            restoredBoard.rotate();
+        }
+
+        assertArrayEquals(letters, restoredBoard.toString().split(","));
+        for (int i = 0; i < board.getSize(); i++) {
+            assertEquals("Weight of tile " + i, engine.getWeight(board.getRotatedPosition(i)), restored.getWeight(restoredBoard.getRotatedPosition(i)));
+        }
+    }
+
+    /**
+     * A ten second game on a board with "cat", "car", "cart", "art", "rat" and "tar" on it.
+     */
+    private GameEngine engine(GameEngine.ScoreType scoreType) {
+        Board board = new FourByFourBoard(new String[]{
+                "c", "a", "t", "x",
+                "x", "r", "x", "x",
+                "x", "x", "x", "x",
+                "x", "x", "x", "x",
+        });
+
+        StringTrie trie = new StringTrie(LANGUAGE);
+        for (String word : WORDS) {
+            trie.addWord(word);
+        }
+
+        return new GameEngine(LANGUAGE, board, trie.solver(board, new WordFilter.MinLength(3)), scoreType, 1000, () -> now);
+    }
+
+}
@@ -39,4 +39,28 @@ class GameModeTest {
         assertEquals(mode, GameMode.deserialize(mode.serialize()))
     }
 
-}
\ No newline at end of file
+    @Test
+    fun serializeMinWordsOnBoard() {
+        val mode = GameMode(
+                100,
+                GameMode.Type.CUSTOM,
+                "Custom Game Mode",
+                36,
+                360,
+                6,
+                GameMode.SCORE_WORDS,
+                "",
+                20
+        )
+
+        assertEquals(mode, GameMode.deserialize(mode.serialize()))
+    }
+
+    @Test
+    fun deserializeWithoutMinWordsOnBoard() {
+        val mode = GameMode.deserialize("12\nSPRINT\n\n16\n180\n3\nL\nhint_colour\n")
+
+        assertEquals(GameMode.DEFAULT_MIN_WORDS_ON_BOARD, mode.minWordsOnBoard)
+    }
+
+}
@@ -0,0 +1,88 @@
+package com.serwylo.lexica.benchmarks;
+
+import com.serwylo.lexica.game.Board;
+import com.serwylo.lexica.game.CharProbGenerator;
+import com.serwylo.lexica.lang.Language;
+import com.serwylo.lexica.trie.util.TrieBuilder;
+
+import net.healeys.trie.StringTrie;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+
+/**
+ * Loads the same dictionaries and letter distributions that the app is built from, and generates
+ * the same boards every time so that results can be compared between commits.
+ */
+final class BenchmarkData {
+
+    /**
+     * Number of boards generated for each benchmark invocation.
+     */
+    static final int BOARDS = 16;
+
+    private BenchmarkData() {
+    }
+
+    static Language language(String name) {
+        try {
+            return Language.from(name);
+        } catch (Language.NotFound e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    static File dictionaryFile(Language language) throws FileNotFoundException {
+        return existingFile("lexica.dictionaries", language.getDictionaryFileName());
+    }
+
+    static CharProbGenerator charProbGenerator(Language language) throws FileNotFoundException {
+        File letters = existingFile("lexica.letters", language.getLetterDistributionFileName());
+        return new CharProbGenerator(new FileInputStream(letters), language);
+    }
+
+    /**
+     * The same {@link #BOARDS} boards for a given language and size every time.
+     */
+    static Board[] boards(Language language, int size) throws FileNotFoundException {
+        CharProbGenerator generator = charProbGenerator(language);
+        Board[] boards = new Board[BOARDS];
+        for (int i = 0; i < BOARDS; i++) {
+            boards[i] = generator.generateBoard(size, i);
+        }
+        return boards;
+    }
+
+    /**
+     * Reads the dictionary in the same way as {@link TrieBuilder}.
+     */
+    static StringTrie fullTrie(Language language) throws IOException {
+        StringTrie trie = new StringTrie(language);
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(dictionaryFile(language)), Charset.forName("UTF-8")))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                trie.addWord(line.toLowerCase(language.getLocale()));
+            }
+        }
+        return trie;
+    }
+
+    private static File existingFile(String dirProperty, String fileName) throws FileNotFoundException {
+        String dir = System.getProperty(dirProperty);
+        if (dir == null) {
+            throw new IllegalStateException("System property " + dirProperty + " is not set. Run via \"./gradlew :libraries:benchmarks:jmh\", which sets it.");
+        }
+
+        File file = new File(dir, fileName);
+        if (!file.exists()) {
+            throw new FileNotFoundException(file.getAbsolutePath());
+        }
+        return file;
+    }
+
+}
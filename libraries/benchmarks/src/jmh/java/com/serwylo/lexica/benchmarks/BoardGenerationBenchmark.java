@@ -0,0 +1,45 @@
+package com.serwylo.lexica.benchmarks;
+
+import com.serwylo.lexica.game.CharProbGenerator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BoardGenerationBenchmark {
+
+    @Param({"ca", "de_DE", "de_DE_no_diacritics", "en_GB", "en_US", "es", "fa", "fr_FR", "fr_FR_no_diacritics", "hu", "id", "it", "ja", "nl", "pl", "pt_BR", "ru", "ru_extended", "uk"})
+    public String language;
+
+    @Param({"16", "25", "36"})
+    public int boardSize;
+
+    private CharProbGenerator generator;
+
+    @Setup
+    public void setup() throws IOException {
+        generator = BenchmarkData.charProbGenerator(BenchmarkData.language(language));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.BOARDS)
+    public void generateBoard(Blackhole blackhole) {
+        for (int seed = 0; seed < BenchmarkData.BOARDS; seed++) {
+            blackhole.consume(generator.generateBoard(boardSize, seed));
+        }
+    }
+
+}
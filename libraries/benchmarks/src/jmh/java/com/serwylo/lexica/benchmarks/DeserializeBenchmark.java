@@ -0,0 +1,83 @@
+package com.serwylo.lexica.benchmarks;
+
+import com.serwylo.lexica.game.Board;
+import com.serwylo.lexica.lang.Language;
+import com.serwylo.lexica.trie.util.TrieBuilder;
+
+import net.healeys.trie.StringTrie;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads a serialized trie, as the app does when starting each game. Only the words which can be
+ * spelled on the board are kept, so {@link #deserializeForBoard(Blackhole)} is what the app used to
+ * do, {@link #deserializeForBoardFromBuffer(Blackhole)} is what it does now (via the TrieCache),
+ * and {@link #deserializeFull()} is what the language analysis tools do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DeserializeBenchmark {
+
+    @Param({"ca", "de_DE", "de_DE_no_diacritics", "en_GB", "en_US", "es", "fa", "fr_FR", "fr_FR_no_diacritics", "hu", "id", "it", "ja", "nl", "pl", "pt_BR", "ru", "ru_extended", "uk"})
+    public String language;
+
+    @Param({"16", "25", "36"})
+    public int boardSize;
+
+    @Param({"STRING", "COMPACT", "COMPACT_ANNOTATED"})
+    public TrieBuilder.Format format;
+
+    /**
+     * See {@link StringTrie.Deserializer#Deserializer(boolean)}.
+     */
+    @Param({"false", "true"})
+    public boolean countTiles;
+
+    private Language lang;
+    private byte[] serialized;
+    private Board[] boards;
+
+    @Setup
+    public void setup() throws IOException {
+        lang = BenchmarkData.language(language);
+        serialized = TrieBuilder.serialize(BenchmarkData.fullTrie(lang), lang, format);
+        boards = BenchmarkData.boards(lang, boardSize);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.BOARDS)
+    public void deserializeForBoard(Blackhole blackhole) throws IOException {
+        for (Board board : boards) {
+            blackhole.consume(new StringTrie.Deserializer(countTiles).deserialize(new ByteArrayInputStream(serialized), board, lang));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.BOARDS)
+    public void deserializeForBoardFromBuffer(Blackhole blackhole) throws IOException {
+        for (Board board : boards) {
+            blackhole.consume(new StringTrie.Deserializer(countTiles).deserialize(ByteBuffer.wrap(serialized), board, lang));
+        }
+    }
+
+    @Benchmark
+    public StringTrie deserializeFull() throws IOException {
+        return new StringTrie.Deserializer().deserialize(new ByteArrayInputStream(serialized), null, lang);
+    }
+
+}
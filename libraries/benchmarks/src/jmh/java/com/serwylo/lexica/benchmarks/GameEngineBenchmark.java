@@ -0,0 +1,77 @@
+package com.serwylo.lexica.benchmarks;
+
+import com.serwylo.lexica.game.Board;
+import com.serwylo.lexica.game.GameEngine;
+import com.serwylo.lexica.lang.Language;
+
+import net.healeys.trie.Solution;
+import net.healeys.trie.StringTrie;
+import net.healeys.trie.WordFilter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plays a whole game on each board without Android, finding every word (along with a guess which
+ * isn't a word, and one already found) for each word on the board. The boards are solved up front,
+ * so this measures the {@link GameEngine} itself. Each operation is one game.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GameEngineBenchmark {
+
+    @Param({"ca", "de_DE", "de_DE_no_diacritics", "en_GB", "en_US", "es", "fa", "fr_FR", "fr_FR_no_diacritics", "hu", "id", "it", "ja", "nl", "pl", "pt_BR", "ru", "ru_extended", "uk"})
+    public String language;
+
+    @Param({"16", "25", "36"})
+    public int boardSize;
+
+    @Param({"WORDS", "LETTERS"})
+    public GameEngine.ScoreType scoreType;
+
+    private Language lang;
+    private Board[] boards;
+    private Map<String, List<Solution>>[] solutions;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() throws IOException {
+        lang = BenchmarkData.language(language);
+        StringTrie trie = BenchmarkData.fullTrie(lang);
+        boards = BenchmarkData.boards(lang, boardSize);
+        solutions = new Map[boards.length];
+        for (int i = 0; i < boards.length; i++) {
+            solutions[i] = trie.solver(boards[i], new WordFilter.MinLength(3));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.BOARDS)
+    public void playGame(Blackhole blackhole) {
+        for (int i = 0; i < boards.length; i++) {
+            GameEngine engine = new GameEngine(lang, boards[i], solutions[i], scoreType, 18000, () -> 0);
+            engine.start();
+            for (String word : solutions[i].keySet()) {
+                blackhole.consume(engine.addWord(word + "zz"));
+                blackhole.consume(engine.addWord(word));
+                blackhole.consume(engine.addWord(word));
+            }
+            blackhole.consume(engine.getScore());
+        }
+    }
+
+}
@@ -0,0 +1,101 @@
+package com.serwylo.lexica.benchmarks;
+
+import com.serwylo.lexica.game.Board;
+import com.serwylo.lexica.lang.Language;
+
+import net.healeys.trie.StringTrie;
+import net.healeys.trie.WordFilter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Solves the same boards against a trie with every word in the dictionary. Each operation is one
+ * board. {@link #solveParallel(Pool, Blackhole)} solves each board on a pool of
+ * {@link Pool#threads} threads, for comparison against {@link #solve(Blackhole)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SolverBenchmark {
+
+    @Param({"ca", "de_DE", "de_DE_no_diacritics", "en_GB", "en_US", "es", "fa", "fr_FR", "fr_FR_no_diacritics", "hu", "id", "it", "ja", "nl", "pl", "pt_BR", "ru", "ru_extended", "uk"})
+    public String language;
+
+    @Param({"16", "25", "36"})
+    public int boardSize;
+
+    private StringTrie trie;
+    private Board[] boards;
+    private WordFilter filter;
+
+    @Setup
+    public void setup() throws IOException {
+        Language lang = BenchmarkData.language(language);
+        trie = BenchmarkData.fullTrie(lang);
+        boards = BenchmarkData.boards(lang, boardSize);
+        filter = new WordFilter.MinLength(3);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.BOARDS)
+    public void solve(Blackhole blackhole) {
+        for (Board board : boards) {
+            blackhole.consume(trie.solver(board, filter));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.BOARDS)
+    public void solveParallel(Pool pool, Blackhole blackhole) {
+        for (Board board : boards) {
+            blackhole.consume(trie.solver(board, filter, pool.executor));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.BOARDS)
+    public void countWords(Blackhole blackhole) {
+        for (Board board : boards) {
+            blackhole.consume(trie.countWords(board, 3));
+        }
+    }
+
+    /**
+     * Only used by {@link #solveParallel(Pool, Blackhole)}, so that the other benchmarks aren't
+     * run once for each number of threads.
+     */
+    @State(Scope.Benchmark)
+    public static class Pool {
+
+        @Param({"1", "2", "4", "8"})
+        public int threads;
+
+        ExecutorService executor;
+
+        @Setup
+        public void setup() {
+            executor = Executors.newFixedThreadPool(threads);
+        }
+
+        @TearDown
+        public void tearDown() {
+            executor.shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,63 @@
+package com.serwylo.lexica.benchmarks;
+
+import com.serwylo.lexica.lang.Language;
+import com.serwylo.lexica.trie.util.TrieBuilder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds a trie from a dictionary and writes it to a temporary file, as is done for every language
+ * when preparing a release. Each invocation takes a long time, so this runs fewer iterations than
+ * the other benchmarks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TrieBuilderBenchmark {
+
+    @Param({"ca", "de_DE", "de_DE_no_diacritics", "en_GB", "en_US", "es", "fa", "fr_FR", "fr_FR_no_diacritics", "hu", "id", "it", "ja", "nl", "pl", "pt_BR", "ru", "ru_extended", "uk"})
+    public String language;
+
+    @Param({"STRING", "COMPACT", "COMPACT_ANNOTATED", "MAPPED", "DAWG"})
+    public TrieBuilder.Format format;
+
+    private Language lang;
+    private File dictionary;
+    private File output;
+
+    @Setup
+    public void setup() throws IOException {
+        lang = BenchmarkData.language(language);
+        dictionary = BenchmarkData.dictionaryFile(lang);
+        output = File.createTempFile("benchmark-" + language, ".bin");
+    }
+
+    @TearDown
+    public void tearDown() {
+        output.delete();
+    }
+
+    @Benchmark
+    public void run() throws IOException {
+        TrieBuilder.run(lang, dictionary, new File[]{output}, format);
+    }
+
+}
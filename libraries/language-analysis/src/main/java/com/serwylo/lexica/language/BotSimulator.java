@@ -0,0 +1,246 @@
+package com.serwylo.lexica.language;
+
+import com.serwylo.lexica.game.Board;
+import com.serwylo.lexica.game.CharProbGenerator;
+import com.serwylo.lexica.game.GameEngine;
+import com.serwylo.lexica.lang.Language;
+
+import net.healeys.trie.Solution;
+import net.healeys.trie.Trie;
+import net.healeys.trie.WordFilter;
+
+import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Plays lots of games of each {@link Mode} with a simulated player, to estimate what scores are
+ * achievable in a language without anyone having to play it.
+ * <p>
+ * The bot spots each word on the board independently, with a chance of {@code skill ^ (length - 2)}
+ * (so a skill of 0.5 spots half of the three letter words, a quarter of the four letter words,
+ * and so on). It then enters the words it spotted in a random order, each taking
+ * {@link #SECONDS_PER_WORD} of game time, until either it runs out of words or the game runs out
+ * of time. Scoring and timing are done by a {@link GameEngine}, with a simulated clock.
+ * <p>
+ * Boards are generated from seeds, and each game has its own random numbers derived from the same
+ * seed, so the same arguments always give the same results no matter how many threads are used.
+ */
+public class BotSimulator {
+
+    /**
+     * How long the bot takes to enter each word it has spotted.
+     */
+    static final int SECONDS_PER_WORD = 4;
+
+    /**
+     * Each mode's games are split into tasks of (at most) this many games, so that the work can
+     * be spread evenly over all cores.
+     */
+    private static final int GAMES_PER_TASK = 50;
+
+    /**
+     * The game modes which the app starts with, see the default game modes in the app's
+     * MigrateHighScoresFromPreferences. The beginner mode is the same as {@link #SPRINT} apart from
+     * showing hints, which the bot doesn't use, so isn't simulated separately.
+     */
+    public enum Mode {
+        SPRINT(16, 180, 3, GameEngine.ScoreType.WORDS),
+        MARATHON(36, 1800, 5, GameEngine.ScoreType.WORDS),
+        LETTER_POINTS(25, 180, 4, GameEngine.ScoreType.LETTERS);
+
+        final int boardSize;
+        final int timeLimitSeconds;
+        final int minWordLength;
+        final GameEngine.ScoreType scoreType;
+
+        Mode(int boardSize, int timeLimitSeconds, int minWordLength, GameEngine.ScoreType scoreType) {
+            this.boardSize = boardSize;
+            this.timeLimitSeconds = timeLimitSeconds;
+            this.minWordLength = minWordLength;
+            this.scoreType = scoreType;
+        }
+    }
+
+    private final Language language;
+    private final Trie trie;
+    private final CharProbGenerator generator;
+    private final ForkJoinPool pool;
+
+    /**
+     * @param trie Read from by every thread at once, so should be the whole trie rather than one
+     *             loaded for a particular board.
+     */
+    public BotSimulator(Language language, Trie trie, CharProbGenerator generator, ForkJoinPool pool) {
+        this.language = language;
+        this.trie = trie;
+        this.generator = generator;
+        this.pool = pool;
+    }
+
+    /**
+     * @param skill Between 0 (never finds anything) and 1 (finds every word, time permitting).
+     */
+    public Results simulate(Mode mode, int games, double skill, long seed) {
+        Results results = new Results(mode, games);
+        pool.invoke(new PlayGames(mode, skill, seed, results, 0, games));
+        return results;
+    }
+
+    /**
+     * Plays game number {@param game} of a run with {@param seed}.
+     */
+    void play(Mode mode, double skill, long seed, int game, Results results) {
+        Board board = generator.generateBoard(mode.boardSize, seed + game);
+        Map<String, List<Solution>> solutions = trie.solver(board, new WordFilter.MinLength(mode.minWordLength));
+
+        // Not seeded with seed + game, or the bot would follow the same random numbers which
+        // chose the letters on the board.
+        Random rng = new Random((seed + game) * 0x9E3779B97F4A7C15L);
+        List<String> spotted = new ArrayList<>();
+        for (String word : solutions.keySet()) {
+            if (rng.nextDouble() < Math.pow(skill, word.length() - 2)) {
+                spotted.add(word);
+            }
+        }
+        Collections.shuffle(spotted, rng);
+
+        long[] now = {0};
+        GameEngine engine = new GameEngine(language, board, solutions, mode.scoreType, 100 * mode.timeLimitSeconds, () -> now[0]);
+        engine.start();
+        for (String word : spotted) {
+            now[0] += SECONDS_PER_WORD * 1000;
+            if (engine.tick() == 0) {
+                break;
+            }
+            engine.addWord(word);
+        }
+
+        results.scores[game] = engine.getScore();
+        results.wordCounts[game] = engine.getWordCount();
+        results.maxWordCounts[game] = engine.getMaxWordCount();
+    }
+
+    /**
+     * Plays a range of games, splitting the range in half until there are at most
+     * {@link #GAMES_PER_TASK} games left.
+     */
+    private class PlayGames extends RecursiveAction {
+
+        private final Mode mode;
+        private final double skill;
+        private final long seed;
+        private final Results results;
+        private final int from;
+        private final int to;
+
+        PlayGames(Mode mode, double skill, long seed, Results results, int from, int to) {
+            this.mode = mode;
+            this.skill = skill;
+            this.seed = seed;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= GAMES_PER_TASK) {
+                for (int i = from; i < to; i++) {
+                    play(mode, skill, seed, i, results);
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new PlayGames(mode, skill, seed, results, from, middle), new PlayGames(mode, skill, seed, results, middle, to));
+            }
+        }
+    }
+
+    /**
+     * The outcome of each game, indexed by game number.
+     */
+    public static class Results {
+
+        final Mode mode;
+        final int[] scores;
+        final int[] wordCounts;
+
+        /**
+         * Number of words on each board, whether or not the bot found them.
+         */
+        final int[] maxWordCounts;
+
+        Results(Mode mode, int games) {
+            this.mode = mode;
+            this.scores = new int[games];
+            this.wordCounts = new int[games];
+            this.maxWordCounts = new int[games];
+        }
+
+        public String toString() {
+            return mode + " (" + mode.boardSize + " tiles, " + mode.timeLimitSeconds + "s, words of " + mode.minWordLength + "+ letters, scored by " + mode.scoreType.name().toLowerCase(Locale.ENGLISH) + ")\n"
+                    + "\n"
+                    + histogram("Score", scores)
+                    + "\n"
+                    + histogram("Words found", wordCounts)
+                    + "\n"
+                    + histogram("Words on board", maxWordCounts);
+        }
+    }
+
+    private static final int HISTOGRAM_BUCKETS = 20;
+    private static final int HISTOGRAM_WIDTH = 50;
+
+    /**
+     * A summary of {@param values} followed by a text histogram, with one row per bucket.
+     */
+    static String histogram(String title, int[] values) {
+        DescriptiveStatistics stats = new DescriptiveStatistics();
+        for (int value : values) {
+            stats.addValue(value);
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ENGLISH, "%s: min %d, mean %.1f, median %d, 90th percentile %d, max %d, stddev %.1f%n",
+                title, (int) stats.getMin(), stats.getMean(), (int) stats.getPercentile(50), (int) stats.getPercentile(90), (int) stats.getMax(), stats.getStandardDeviation()));
+
+        if (values.length == 0) {
+            return sb.toString();
+        }
+
+        int min = (int) stats.getMin();
+        int bucketSize = Math.max(1, ((int) stats.getMax() - min + HISTOGRAM_BUCKETS) / HISTOGRAM_BUCKETS);
+        int[] counts = new int[((int) stats.getMax() - min) / bucketSize + 1];
+        for (int value : values) {
+            counts[(value - min) / bucketSize]++;
+        }
+
+        int maxCount = 0;
+        for (int count : counts) {
+            maxCount = Math.max(maxCount, count);
+        }
+
+        for (int i = 0; i < counts.length; i++) {
+            int from = min + i * bucketSize;
+            int bar = (int) Math.round((double) counts[i] * HISTOGRAM_WIDTH / maxCount);
+            sb.append(String.format(Locale.ENGLISH, "  %6d - %-6d | %-" + HISTOGRAM_WIDTH + "s %d%n", from, from + bucketSize - 1, repeat('#', bar), counts[i]));
+        }
+        return sb.toString();
+    }
+
+    private static String repeat(char c, int times) {
+        StringBuilder sb = new StringBuilder(times);
+        for (int i = 0; i < times; i++) {
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+}
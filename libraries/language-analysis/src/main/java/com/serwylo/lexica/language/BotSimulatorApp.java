@@ -0,0 +1,142 @@
+package com.serwylo.lexica.language;
+
+import com.serwylo.lexica.game.CharProbGenerator;
+import com.serwylo.lexica.lang.Language;
+
+import net.healeys.trie.Trie;
+import net.healeys.trie.TrieHeader;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Command line interface to the {@link BotSimulator}, run via
+ * "java -jar language-analysis.jar simulate ...".
+ */
+public class BotSimulatorApp {
+
+    private static final String GAMES_OPTION = "--games=";
+    private static final String SKILL_OPTION = "--skill=";
+    private static final String SEED_OPTION = "--seed=";
+    private static final String THREADS_OPTION = "--threads=";
+    private static final String MODES_OPTION = "--modes=";
+
+    public static void main(String[] args) throws IOException {
+        int games = 10000;
+        double skill = 0.5;
+        long seed = 0;
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<BotSimulator.Mode> modes = new ArrayList<>();
+        while (args.length > 0 && args[0].startsWith("--")) {
+            try {
+                if (args[0].startsWith(GAMES_OPTION)) {
+                    games = Integer.parseInt(args[0].substring(GAMES_OPTION.length()));
+                } else if (args[0].startsWith(SKILL_OPTION)) {
+                    skill = Double.parseDouble(args[0].substring(SKILL_OPTION.length()));
+                } else if (args[0].startsWith(SEED_OPTION)) {
+                    seed = Long.parseLong(args[0].substring(SEED_OPTION.length()));
+                } else if (args[0].startsWith(THREADS_OPTION)) {
+                    threads = Integer.parseInt(args[0].substring(THREADS_OPTION.length()));
+                } else if (args[0].startsWith(MODES_OPTION)) {
+                    for (String mode : args[0].substring(MODES_OPTION.length()).split(",")) {
+                        modes.add(BotSimulator.Mode.valueOf(mode.trim().toUpperCase(Locale.ENGLISH)));
+                    }
+                } else {
+                    System.out.println("Unsupported option: " + args[0]);
+                    printUsage();
+                    return;
+                }
+            } catch (IllegalArgumentException e) {
+                System.out.println("Invalid option: " + args[0]);
+                printUsage();
+                return;
+            }
+
+            args = Arrays.copyOfRange(args, 1, args.length);
+        }
+
+        if (args.length < 3 || games < 1 || threads < 1 || skill < 0 || skill > 1) {
+            printUsage();
+            return;
+        }
+
+        if (modes.isEmpty()) {
+            modes.addAll(Arrays.asList(BotSimulator.Mode.values()));
+        }
+
+        final Language language;
+        try {
+            language = Language.from(args[0]);
+        } catch (Language.NotFound e) {
+            System.out.println(e.getMessage());
+            return;
+        }
+
+        final File trieFile = new File(args[1], language.getTrieFileName());
+        if (!trieFile.exists()) {
+            printFileNotFound(trieFile);
+            return;
+        }
+
+        final File lettersFile = new File(args[2], language.getLetterDistributionFileName());
+        if (!lettersFile.exists()) {
+            printFileNotFound(lettersFile);
+            return;
+        }
+
+        // The whole trie, shared by every thread, rather than parsing one for each board.
+        Trie trie;
+        try (InputStream stream = new FileInputStream(trieFile)) {
+            trie = TrieHeader.deserialize(stream, null, language);
+        }
+
+        CharProbGenerator generator;
+        try (InputStream stream = new FileInputStream(lettersFile)) {
+            generator = new CharProbGenerator(stream, language);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            BotSimulator simulator = new BotSimulator(language, trie, generator, pool);
+            System.out.println("[" + language.getName() + ", " + games + " games per mode, skill " + skill + ", seed " + seed + "]");
+            for (BotSimulator.Mode mode : modes) {
+                long start = System.nanoTime();
+                BotSimulator.Results results = simulator.simulate(mode, games, skill, seed);
+                long millis = (System.nanoTime() - start) / 1000000;
+
+                System.out.println();
+                System.out.println(results);
+                System.out.println("Simulated in " + millis + "ms (" + (games * 1000L / Math.max(1, millis)) + " games/s on " + threads + " threads)");
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    static void printUsage() {
+        System.out.println("Usage:");
+        System.out.println("    java -jar language-analysis.jar simulate [--games=N] [--skill=S] [--seed=N] [--threads=N] [--modes=sprint,marathon,letter_points] language path/to/trie/dir/ path/to/letters/dir/");
+        System.out.println("        --games=N                 Number of games to simulate for each game mode (default: 10000).");
+        System.out.println("        --skill=S                 Between 0 and 1, the chance of the bot spotting each three letter word. Longer");
+        System.out.println("                                  words are harder to spot: The chance is S ^ (length - 2) (default: 0.5).");
+        System.out.println("        --seed=N                  Games are played on boards generated from seeds N, N + 1, ... (default: 0).");
+        System.out.println("        --threads=N               How many games to play at once (default: number of processors).");
+        System.out.println("        --modes=...               Comma separated game modes to simulate (default: all).");
+        System.out.println("        language                  en_US|en_GB|de_DE");
+        System.out.println("        path/to/trie/dir/         Directory where words_en_us.bin et al. live.");
+        System.out.println("        path/to/letters/dir/      Directory where letters_en_us.txt et al. live.");
+    }
+
+    private static void printFileNotFound(File file) {
+        System.out.println("Input file " + file + " does not exist.");
+        printUsage();
+    }
+
+}
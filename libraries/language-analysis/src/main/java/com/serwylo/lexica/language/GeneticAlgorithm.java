@@ -7,7 +7,6 @@ import com.serwylo.lexica.trie.util.LetterFrequency;
 
 import net.healeys.trie.StringTrie;
 import net.healeys.trie.Trie;
-import net.healeys.trie.WordFilter;
 
 import org.apache.commons.math3.stat.descriptive.SummaryStatistics;
 
@@ -19,16 +18,16 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 
 public class GeneticAlgorithm {
 
@@ -56,16 +55,28 @@ public class GeneticAlgorithm {
      */
     private static final double FITNESS_CALC_STANDARD_DEVIATION_MULTIPLIER = 2;
 
+    /**
+     * Each genome's boards are split into tasks of (at most) this many boards, so that the work
+     * can be spread evenly over all cores even when only a handful of genomes need scoring.
+     */
+    private static final int FITNESS_CALC_BOARDS_PER_TASK = 10;
+
+    private final ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
     public void run(File trieDir, File dictionaryDir, File outputDir, Language language) throws IOException, InterruptedException {
-        for (int i = 0; i < SEPARATE_RUNS; i++) {
-            Genome best = generateProbabilityDistribution(trieDir, dictionaryDir, language);
+        try {
+            for (int i = 0; i < SEPARATE_RUNS; i++) {
+                Genome best = generateProbabilityDistribution(trieDir, dictionaryDir, language);
 
-            System.out.println("[" + language.getName() + ", run " + (i + 1) + "]");
-            System.out.println(best.toString());
-            System.out.println("Random board:");
-            System.out.println(renderBoardToString(best.toCharProbGenerator().generateFourByFourBoard()));
+                System.out.println("[" + language.getName() + ", run " + (i + 1) + "]");
+                System.out.println(best.toString());
+                System.out.println("Random board:");
+                System.out.println(renderBoardToString(best.toCharProbGenerator().generateFourByFourBoard()));
 
-            writeDistribution(language, outputDir, best);
+                writeDistribution(language, outputDir, best);
+            }
+        } finally {
+            pool.shutdown();
         }
     }
 
@@ -92,17 +103,21 @@ public class GeneticAlgorithm {
         return sb.toString();
     }
 
-    private Genome generateProbabilityDistribution(File trieDir, File dictionaryDir, Language language) throws IOException, InterruptedException {
+    private Genome generateProbabilityDistribution(File trieDir, File dictionaryDir, Language language) throws IOException {
+
+        Trie dict = Fitness.loadTrie(trieDir, language);
 
         List<Genome> currentPopulation = new ArrayList<>();
         for (int genomeNum = 0; genomeNum < NUM_OF_GENOMES; genomeNum++) {
             currentPopulation.add(Genome.createRandom(trieDir, dictionaryDir, language));
         }
 
-        sortInPlaceByFitness(currentPopulation);
+        sortInPlaceByFitness(dict, currentPopulation);
 
         for (int iteration = 0; iteration < ITERATIONS; iteration++) {
 
+            IterationTimer timer = new IterationTimer();
+
             List<Genome> nextPopulation = new ArrayList<>(currentPopulation.size());
 
             SummaryStatistics stats = summariseGenomeScores(currentPopulation);
@@ -124,11 +139,11 @@ public class GeneticAlgorithm {
                 }
             }
 
-            sortInPlaceByFitness(nextPopulation);
+            sortInPlaceByFitness(dict, nextPopulation);
 
             Fitness best = nextPopulation.get(nextPopulation.size() - 1).getFitness();
 
-            System.out.println("Iteration: " + (iteration + 1) + " (" + (int) best.getScore() + ") [" + best + "]");
+            System.out.println("Iteration: " + (iteration + 1) + " (" + (int) best.getScore() + ") [" + best + "] " + timer);
 
             currentPopulation = nextPopulation;
         }
@@ -136,17 +151,67 @@ public class GeneticAlgorithm {
         return currentPopulation.get(currentPopulation.size() - 1);
     }
 
-    private static class CalcFitness implements Callable<Fitness> {
+    /**
+     * Counts the words on a range of boards for a single genome, splitting the range in half until
+     * there are at most {@link #FITNESS_CALC_BOARDS_PER_TASK} boards left.
+     */
+    private static class CountWordsOnBoards extends RecursiveAction {
 
+        private final Trie dict;
         private final Genome genome;
+        private final int[] wordCounts;
+        private final int from;
+        private final int to;
 
-        private CalcFitness(Genome genome) {
+        CountWordsOnBoards(Trie dict, Genome genome, int[] wordCounts, int from, int to) {
+            this.dict = dict;
             this.genome = genome;
+            this.wordCounts = wordCounts;
+            this.from = from;
+            this.to = to;
         }
 
         @Override
-        public Fitness call() throws Exception {
-            return genome.getFitness();
+        protected void compute() {
+            if (to - from <= FITNESS_CALC_BOARDS_PER_TASK) {
+                for (int i = from; i < to; i++) {
+                    wordCounts[i] = Fitness.countWordsOnRandomBoard(dict, genome);
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new CountWordsOnBoards(dict, genome, wordCounts, from, middle), new CountWordsOnBoards(dict, genome, wordCounts, middle, to));
+            }
+        }
+    }
+
+    /**
+     * Wall time and process wide CPU time for a single iteration, used to check how well the
+     * {@link #pool} is being utilised.
+     */
+    private static class IterationTimer {
+
+        private final long startWallTime = System.nanoTime();
+        private final long startCpuTime = processCpuTime();
+
+        private static long processCpuTime() {
+            java.lang.management.OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+            if (os instanceof com.sun.management.OperatingSystemMXBean) {
+                return ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime();
+            }
+            return -1;
+        }
+
+        @Override
+        public String toString() {
+            long wallTime = System.nanoTime() - startWallTime;
+            long cpuTime = processCpuTime() - startCpuTime;
+            int cores = Runtime.getRuntime().availableProcessors();
+
+            String utilisation = startCpuTime < 0 || wallTime == 0
+                    ? "unknown"
+                    : (int) (100.0 * cpuTime / wallTime / cores) + "%";
+
+            return "took " + (wallTime / 1000000) + "ms, CPU utilisation " + utilisation + " of " + cores + " cores";
         }
     }
 
@@ -177,15 +242,35 @@ public class GeneticAlgorithm {
         throw new IllegalStateException("Should have chosen one of the genomes, but didn't.");
     }
 
-    private static void sortInPlaceByFitness(List<Genome> genomes) throws InterruptedException {
+    /**
+     * Calculates the fitness of any genomes which don't have one yet, with each genome's boards
+     * spread across the {@link #pool}, then sorts from least to most fit.
+     */
+    private void sortInPlaceByFitness(Trie dict, List<Genome> genomes) {
 
-        Collection<Callable<Fitness>> tasks = new ArrayList<>(genomes.size());
+        Map<Genome, int[]> wordCounts = new HashMap<>();
+        List<ForkJoinTask<Void>> tasks = new ArrayList<>();
         for (Genome genome : genomes) {
-            tasks.add(new CalcFitness(genome));
+            if (genome.hasFitness() || wordCounts.containsKey(genome)) {
+                continue;
+            }
+
+            int[] counts = new int[FITNESS_CALC_BOARDS_TO_GENERATE];
+            wordCounts.put(genome, counts);
+            tasks.add(pool.submit(new CountWordsOnBoards(dict, genome, counts, 0, counts.length)));
+        }
+
+        for (ForkJoinTask<Void> task : tasks) {
+            task.join();
+        }
+
+        for (Map.Entry<Genome, int[]> entry : wordCounts.entrySet()) {
+            SummaryStatistics stats = new SummaryStatistics();
+            for (int count : entry.getValue()) {
+                stats.addValue(count);
+            }
+            entry.getKey().setFitness(new Fitness(stats));
         }
-        ExecutorService executor = Executors.newFixedThreadPool(20);
-        executor.invokeAll(tasks);
-        executor.shutdown();
 
         Collections.sort(genomes, (lhs, rhs) -> {
             try {
@@ -209,35 +294,41 @@ public class GeneticAlgorithm {
             return new Fitness(generateStats(trieDir, genome, language, work));
         }
 
-        private static Map<Language, byte[]> cachedTries = new HashMap<>();
-
-        private static InputStream trieReader(File trieDir, Language language) throws IOException {
-            if (!cachedTries.containsKey(language)) {
-                byte[] buffer = new byte[1024 * 1024 * 10]; // 10MiB - Needs to be able to fit the largest "words_*.bin file in memory.
+        private static final Map<Language, Trie> cachedTries = new HashMap<>();
 
+        /**
+         * Loads the entire trie for {@param language} the first time it is asked for, and then
+         * shares it between every board for every genome (across all threads). Each board is only
+         * read from, never modified, so there is no need to parse a board specific trie each time.
+         */
+        private static synchronized Trie loadTrie(File trieDir, Language language) throws IOException {
+            Trie trie = cachedTries.get(language);
+            if (trie == null) {
                 File trieFile = new File(trieDir, language.getTrieFileName());
-                InputStream stream = new FileInputStream(trieFile);
-                int read = stream.read(buffer);
-                byte[] total = new byte[read];
-                System.arraycopy(buffer, 0, total, 0, read);
-                cachedTries.put(language, total);
+                try (InputStream stream = new FileInputStream(trieFile)) {
+                    trie = new StringTrie.Deserializer().deserialize(stream, null, language);
+                }
+                cachedTries.put(language, trie);
             }
 
-            return new ByteArrayInputStream(cachedTries.get(language));
+            return trie;
         }
 
         private static SummaryStatistics generateStats(File trieDir, Genome genome, Language language, int iterations) throws IOException {
+            Trie dict = loadTrie(trieDir, language);
+
             SummaryStatistics stats = new SummaryStatistics();
             for (int i = 0; i < iterations; i++) {
-                Board board = genome.toCharProbGenerator().generateFourByFourBoard();
-                InputStream stream = trieReader(trieDir, language);
-                Trie dict = new StringTrie.Deserializer().deserialize(stream, board, language);
-                int numWords = dict.solver(board, new WordFilter.MinLength(3)).size();
-                stats.addValue(numWords);
+                stats.addValue(countWordsOnRandomBoard(dict, genome));
             }
             return stats;
         }
 
+        static int countWordsOnRandomBoard(Trie dict, Genome genome) {
+            Board board = genome.toCharProbGenerator().generateFourByFourBoard();
+            return dict.countWords(board, 3);
+        }
+
         Fitness(SummaryStatistics stats) {
             this.stats = stats;
         }
@@ -367,12 +458,26 @@ public class GeneticAlgorithm {
             return cachedStringRepresentation;
         }
 
+        private CharProbGenerator cachedCharProbGenerator = null;
+
         private CharProbGenerator toCharProbGenerator() {
-            return new CharProbGenerator(new ByteArrayInputStream(toString().getBytes()), language);
+            if (cachedCharProbGenerator == null) {
+                cachedCharProbGenerator = new CharProbGenerator(new ByteArrayInputStream(toString().getBytes()), language);
+            }
+
+            return cachedCharProbGenerator;
         }
 
         private Fitness cachedFitness = null;
 
+        boolean hasFitness() {
+            return cachedFitness != null;
+        }
+
+        void setFitness(Fitness fitness) {
+            cachedFitness = fitness;
+        }
+
         Fitness getFitness() throws IOException {
             if (cachedFitness == null) {
                 cachedFitness = Fitness.calc(trieDir, this, language);
@@ -4,10 +4,18 @@ import com.serwylo.lexica.lang.Language;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
 
 public class LanguageAnalysisApp {
 
+    private static final String SIMULATE_COMMAND = "simulate";
+
     public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length > 0 && args[0].equals(SIMULATE_COMMAND)) {
+            BotSimulatorApp.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
         if (args.length < 3) {
             printUsage();
             return;
@@ -61,6 +69,8 @@ public class LanguageAnalysisApp {
         System.out.println("        path/to/trie/dir/         Directory where words_en_us.bin et al. live.");
         System.out.println("        path/to/dictionary/dir/   Directory where dictionary.en_US.txt et al. live.");
         System.out.println("        path/to/log/output/       Output directories where each attempted analysis is stored.");
+        System.out.println();
+        BotSimulatorApp.printUsage();
     }
 
     private static void printFileNotFound(File file) {
@@ -22,15 +22,40 @@ import net.healeys.trie.TransitionMap;
 public abstract class Board implements TransitionMap {
     private String[] board;
     private Integer[] positions;
+    private final BoardId id;
+    private int rotations = 0;
 
     public Board(String[] b) {
+        this(b, null);
+    }
+
+    /**
+     * @param id How this board was generated, if known (see {@link CharProbGenerator#generateBoard(int, long)}).
+     */
+    public Board(String[] b, BoardId id) {
         board = b;
+        this.id = id;
         positions = new Integer[getSize()];
         for (int i = 0; i < getSize(); i++) {
             positions[i] = i;
         }
     }
 
+    /**
+     * Null if this board was not generated from a seed (e.g. it was restored from a list of letters).
+     */
+    public BoardId getId() {
+        return id;
+    }
+
+    /**
+     * Number of times (modulo 4) that {@link #rotate()} has been called, so that a board
+     * regenerated from its {@link #getId()} can be rotated back to the same orientation.
+     */
+    public synchronized int getRotations() {
+        return rotations;
+    }
+
     /**
      * May be more than one character (see {@link com.serwylo.lexica.lang.Language#applyMandatorySuffix(String)}).
      */
@@ -77,6 +102,7 @@ public abstract class Board implements TransitionMap {
 
         board = newbrd;
         positions = newpos;
+        rotations = (rotations + 1) % 4;
     }
 
     public abstract int getWidth();
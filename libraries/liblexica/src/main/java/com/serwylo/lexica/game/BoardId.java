@@ -0,0 +1,100 @@
+package com.serwylo.lexica.game;
+
+/**
+ * Everything needed to generate the exact same board again: The language (and hence letter
+ * distribution), the size of the board, and the seed used to pick and shuffle letters.
+ * <p>
+ * Boards generated from the same id will only be identical as long as the letter distribution for
+ * that language is unchanged, so anything which is persisted across app updates should also keep
+ * the letters, and check them against the regenerated board.
+ * <p>
+ * The string representation (e.g. "en_US:16:3f2a9c01d7e4b855") is stable, and can be passed back
+ * to {@link #parse(String)}.
+ */
+public final class BoardId {
+
+    private static final char SEPARATOR = ':';
+
+    private final String languageName;
+    private final int size;
+    private final long seed;
+
+    public BoardId(String languageName, int size, long seed) {
+        this.languageName = languageName;
+        this.size = size;
+        this.seed = seed;
+    }
+
+    public String getLanguageName() {
+        return languageName;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @throws IllegalArgumentException If {@param id} was not created by {@link #toString()}.
+     */
+    public static BoardId parse(String id) {
+        // Parse from the end, so that the language name can contain anything.
+        int seedSeparator = id.lastIndexOf(SEPARATOR);
+        int sizeSeparator = seedSeparator <= 0 ? -1 : id.lastIndexOf(SEPARATOR, seedSeparator - 1);
+        if (sizeSeparator <= 0) {
+            throw new IllegalArgumentException("Invalid board id: " + id);
+        }
+
+        try {
+            String languageName = id.substring(0, sizeSeparator);
+            int size = Integer.parseInt(id.substring(sizeSeparator + 1, seedSeparator));
+            long seed = parseUnsignedHex(id.substring(seedSeparator + 1));
+            return new BoardId(languageName, size, seed);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid board id: " + id, e);
+        }
+    }
+
+    /**
+     * Long.parseUnsignedLong requires API 26.
+     */
+    private static long parseUnsignedHex(String hex) {
+        if (hex.isEmpty() || hex.length() > 16) {
+            throw new NumberFormatException("Invalid seed: " + hex);
+        }
+
+        long value = 0;
+        for (int i = 0; i < hex.length(); i++) {
+            int digit = Character.digit(hex.charAt(i), 16);
+            if (digit < 0) {
+                throw new NumberFormatException("Invalid seed: " + hex);
+            }
+            value = (value << 4) | digit;
+        }
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return languageName + SEPARATOR + size + SEPARATOR + Long.toHexString(seed);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof BoardId)) {
+            return false;
+        }
+
+        BoardId other = (BoardId) o;
+        return size == other.size && seed == other.seed && languageName.equals(other.languageName);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * languageName.hashCode() + size) + (int) (seed ^ (seed >>> 32));
+    }
+
+}
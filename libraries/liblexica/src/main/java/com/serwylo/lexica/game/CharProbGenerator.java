@@ -23,21 +23,35 @@ import java.io.BufferedReader;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Random;
 
+/**
+ * Generates boards based on a letter distribution file. Each line of the file is a letter followed
+ * by one or more weights: The first weight is used for the first time the letter is picked, the
+ * second for the second time, and so on (a letter with no weights left won't be picked again).
+ * <p>
+ * Nothing is modified while generating a board, so one generator can be used to generate any
+ * number of boards, from any number of threads.
+ */
 public class CharProbGenerator {
     @SuppressWarnings("unused")
     private static final String TAG = "CharProbGenerator";
-    private final ArrayList<ProbabilityQueue> charProbs;
+
+    private final String languageName;
+    private final String[] letters;
+    private final int[][] weights;
 
     public CharProbGenerator(InputStream letterSource, Language language) {
 
+        languageName = language.getName();
+
         BufferedReader br = new BufferedReader(new InputStreamReader(letterSource));
 
-        charProbs = new ArrayList<>();
+        List<String> letters = new ArrayList<>();
+        List<int[]> weights = new ArrayList<>();
 
         try {
             for (String line = br.readLine(); line != null; line = br.readLine()) {
@@ -47,63 +61,135 @@ public class CharProbGenerator {
                 }
 
                 String[] chunks = line.toLowerCase(language.getLocale()).split(" ");
-                ProbabilityQueue pq = new ProbabilityQueue(language.applyMandatorySuffix(chunks[0]));
+                int[] letterWeights = new int[chunks.length - 1];
                 for (int i = 1; i < chunks.length; i++) {
-                    pq.addProb(language.applyMandatorySuffix(chunks[i]));
+                    letterWeights[i - 1] = Integer.parseInt(chunks[i]);
                 }
-                charProbs.add(pq);
+                letters.add(language.applyMandatorySuffix(chunks[0]));
+                weights.add(letterWeights);
             }
         } catch (Exception e) {
             // Log.e(TAG,"READING INPUT",e);
             // Checked exceptions considered harmful.
         }
 
+        this.letters = letters.toArray(new String[0]);
+        this.weights = weights.toArray(new int[0][]);
     }
 
     public List<String> getAlphabet() {
-        List<String> letters = new ArrayList<>(charProbs.size());
-        for (ProbabilityQueue prob : charProbs) {
-            letters.add(prob.letter);
-        }
-        return Collections.unmodifiableList(letters);
+        return Collections.unmodifiableList(Arrays.asList(letters));
     }
 
     public FiveByFiveBoard generateFiveByFiveBoard() {
-        return new FiveByFiveBoard(generateBoard(25));
+        return generateFiveByFiveBoard(new Random());
     }
 
     public FourByFourBoard generateFourByFourBoard() {
-        return new FourByFourBoard(generateBoard(16));
+        return generateFourByFourBoard(new Random());
     }
 
     public SixBySixBoard generateSixBySixBoard() {
-        return new SixBySixBoard(generateBoard(36));
+        return generateSixBySixBoard(new Random());
+    }
+
+    /**
+     * The same {@param rng} (e.g. created with the same seed) will always result in the same board.
+     */
+    public FiveByFiveBoard generateFiveByFiveBoard(Random rng) {
+        return new FiveByFiveBoard(generateBoard(25, rng));
+    }
+
+    public FourByFourBoard generateFourByFourBoard(Random rng) {
+        return new FourByFourBoard(generateBoard(16, rng));
+    }
+
+    public SixBySixBoard generateSixBySixBoard(Random rng) {
+        return new SixBySixBoard(generateBoard(36, rng));
+    }
+
+    /**
+     * Generates the same board every time for the same {@param size} and {@param seed}, which is
+     * recorded in the {@link Board#getId()} of the result.
+     *
+     * @param size 16, 25 or 36.
+     */
+    public Board generateBoard(int size, long seed) {
+        BoardId id = new BoardId(languageName, size, seed);
+        String[] letters = generateBoard(size, new Random(seed));
+        switch (size) {
+            case 16:
+                return new FourByFourBoard(letters, id);
+
+            case 25:
+                return new FiveByFiveBoard(letters, id);
+
+            case 36:
+                return new SixBySixBoard(letters, id);
+
+            default:
+                throw new IllegalArgumentException("Board must be 16, 25, or 36 large");
+        }
+    }
+
+    /**
+     * Regenerates the board identified by {@param id}, as long as this is the letter distribution
+     * for the same language.
+     */
+    public Board generateBoard(BoardId id) {
+        if (!languageName.equals(id.getLanguageName())) {
+            throw new IllegalArgumentException("Board " + id + " is for a different language to this generator (" + languageName + ")");
+        }
+
+        return generateBoard(id.getSize(), id.getSeed());
     }
 
-    private String[] generateBoard(int size) {
-        int total = 0;
-        Random rng = new Random();
+    /**
+     * Regenerates a saved board, but only if rotating it {@param rotations} times gives the saved
+     * {@param letters}. The letter distribution may have changed since the board was saved (e.g.
+     * after an update), in which case this returns null.
+     * <p>
+     * The board is returned in the orientation it was generated in, rather than rotated. Words
+     * should be found on it like that (as for a new board), so that their paths match
+     * {@link Board#getRotatedPosition(int)} once it is rotated.
+     */
+    public Board regenerateBoard(BoardId id, int rotations, String[] letters) {
+        Board board = generateBoard(id);
+        for (int i = 0; i < rotations; i++) {
+            board.rotate();
+        }
+
+        boolean matches = Arrays.equals(letters, board.toString().split(","));
+
+        // Rotating the rest of the way round puts it back how it was generated.
+        while (board.getRotations() != 0) {
+            board.rotate();
+        }
+
+        return matches ? board : null;
+    }
 
+    private String[] generateBoard(int size, Random rng) {
         String[] board = new String[size];
 
-        for (int i = 0; i < charProbs.size(); i++) {
-            total += charProbs.get(i).peekProb();
+        // How many times each letter has been picked so far, and hence which of its weights
+        // is used for the next pick.
+        int[] timesPicked = new int[letters.length];
+
+        LetterWeights currentWeights = new LetterWeights(letters.length);
+        for (int i = 0; i < letters.length; i++) {
+            currentWeights.set(i, weightAt(i, 0));
         }
 
         // get the letters
         for (int i = 0; i < size; i++) {
-            ProbabilityQueue pq = null;
-            int remaining = rng.nextInt(total);
-            for (int j = 0; j < charProbs.size(); j++) {
-                pq = charProbs.get(j);
-                remaining -= pq.peekProb();
-                if (pq.peekProb() > 0 && remaining <= 0) {
-                    break;
-                }
-            }
-            board[i] = pq.getLetter();
-            total -= pq.getProb();
-            total += pq.peekProb();
+            // A random number of 0 picks the first letter with any weight, the same as a 1 does.
+            int selection = Math.max(1, rng.nextInt(currentWeights.getTotal()));
+            int letter = currentWeights.find(selection);
+
+            board[i] = letters[letter];
+            timesPicked[letter]++;
+            currentWeights.set(letter, weightAt(letter, timesPicked[letter]));
         }
 
         // shuffle the letters
@@ -117,39 +203,65 @@ public class CharProbGenerator {
         return board;
     }
 
-    private static class ProbabilityQueue {
+    private int weightAt(int letter, int timesPicked) {
+        int[] letterWeights = weights[letter];
+        return timesPicked < letterWeights.length ? letterWeights[timesPicked] : 0;
+    }
 
-        private final String letter;
-        private final LinkedList<Integer> probQueue;
+    /**
+     * Binary indexed (Fenwick) tree of the current weight of each letter.
+     * <p>
+     * Picking a letter means finding the first letter at which the running total of weights
+     * reaches a random number. Rather than scanning every letter to do so, this keeps partial sums
+     * so that both finding a letter and updating its weight (every pick changes the weight of the
+     * letter picked) take O(log n) time.
+     */
+    private static class LetterWeights {
 
-        ProbabilityQueue(String l) {
-            letter = l;
-            probQueue = new LinkedList<>();
-        }
+        private final int[] weights;
 
         /**
-         * Already has any mandatory suffix applied (hopefully!).
+         * 1-indexed, where tree[i] is the sum of the (i & -i) weights up to and including i - 1.
          */
-        public String getLetter() {
-            return letter;
-        }
+        private final int[] tree;
 
-        void addProb(String s) {
-            probQueue.add(Integer.valueOf(s));
+        private final int highestBit;
+        private int total = 0;
+
+        LetterWeights(int size) {
+            weights = new int[size];
+            tree = new int[size + 1];
+            highestBit = size == 0 ? 0 : Integer.highestOneBit(size);
         }
 
-        int peekProb() {
-            if (probQueue.isEmpty())
-                return 0;
-            return probQueue.peek();
+        int getTotal() {
+            return total;
         }
 
-        int getProb() {
-            if (probQueue.isEmpty())
-                return 0;
-            return probQueue.remove();
+        void set(int index, int weight) {
+            int delta = weight - weights[index];
+            weights[index] = weight;
+            total += delta;
+            for (int i = index + 1; i < tree.length; i += i & -i) {
+                tree[i] += delta;
+            }
         }
 
+        /**
+         * @param target Between 1 and {@link #getTotal()} inclusive.
+         * @return The first index at which the running total of weights is at least {@param target}.
+         */
+        int find(int target) {
+            int position = 0;
+            for (int step = highestBit; step > 0; step >>= 1) {
+                int next = position + step;
+                if (next < tree.length && tree[next] < target) {
+                    position = next;
+                    target -= tree[next];
+                }
+            }
+            return position;
+        }
     }
 
 }
@@ -26,6 +26,10 @@ public class FiveByFiveBoard extends Board {
         super(b);
     }
 
+    public FiveByFiveBoard(String[] b, BoardId id) {
+        super(b, id);
+    }
+
     public int getSize() {
         return SIZE;
     }
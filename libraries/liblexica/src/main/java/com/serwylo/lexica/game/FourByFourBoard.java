@@ -25,6 +25,10 @@ public class FourByFourBoard extends Board {
         super(b);
     }
 
+    public FourByFourBoard(String[] b, BoardId id) {
+        super(b, id);
+    }
+
     public int getSize() {
         return SIZE;
     }
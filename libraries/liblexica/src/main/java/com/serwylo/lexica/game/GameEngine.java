@@ -0,0 +1,372 @@
+package com.serwylo.lexica.game;
+
+import com.serwylo.lexica.lang.Language;
+
+import net.healeys.trie.Solution;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+
+/**
+ * The rules of a single game: which words have been found, the score, the tile weights used for
+ * hints and the time remaining. Nothing in here depends on Android, so games can be played (or
+ * simulated in bulk) on the JVM. The app's Game wraps one of these, and adds sounds, preferences
+ * and saving on top.
+ * <p>
+ * Times are in hundredths of a second, and are measured against a {@link Clock}, so that a
+ * simulated game doesn't need to wait for real time to pass.
+ */
+public class GameEngine {
+
+    public enum GameStatus {GAME_STARTING, GAME_RUNNING, GAME_PAUSED, GAME_FINISHED}
+
+    public enum ScoreType {
+
+        /**
+         * Longer words are worth more, see {@link #WORD_POINTS}.
+         */
+        WORDS,
+
+        /**
+         * Each letter is worth {@link Language#getPointsForLetter(String)}.
+         */
+        LETTERS,
+    }
+
+    /**
+     * What happened to a word passed to {@link #addWord(String)}.
+     */
+    public enum WordResult {NEW_WORD, ALREADY_FOUND, NOT_A_WORD, NOT_RUNNING}
+
+    public interface Clock {
+
+        Clock SYSTEM = System::currentTimeMillis;
+
+        long currentTimeMillis();
+    }
+
+    private static final int[] WORD_POINTS = {0, 0, 0, // 0,1,2
+            1, 1, 2, // 3,4,5
+            3, 5, 8, // 6,7,8
+            13, 21, 34, // 9,10,11
+            55, 89, 144, // 12,13,14
+            233, 377, 610, //14,15,16
+            987, 1597, 2584, // 17,18,19
+            4181, 6765, 10946, // 20,21,22
+            17711, 28657, 46368, // 23,24,25
+    };
+
+    private final Language language;
+    private final Board board;
+    private final ScoreType scoreType;
+    private final int maxTimeRemaining;
+    private final Clock clock;
+
+    private Map<String, List<Solution>> solutions;
+    private int[] weights;
+
+    private GameStatus status = GameStatus.GAME_STARTING;
+    private int timeRemaining;
+    private int maxTime;
+    private Date start;
+
+    private int score;
+    private int wordCount;
+    private final LinkedList<String> wordList = new LinkedList<>();
+    private final LinkedHashSet<String> wordsUsed = new LinkedHashSet<>();
+
+    /**
+     * @param solutions        Every word on {@param board} which counts, e.g. those at least as long
+     *                         as the minimum word length for the game mode.
+     * @param maxTimeRemaining Length of the game, in hundredths of a second.
+     */
+    public GameEngine(Language language, Board board, Map<String, List<Solution>> solutions, ScoreType scoreType, int maxTimeRemaining, Clock clock) {
+        this.language = language;
+        this.board = board;
+        this.solutions = solutions;
+        this.scoreType = scoreType;
+        this.maxTimeRemaining = maxTimeRemaining;
+        this.clock = clock;
+
+        timeRemaining = maxTimeRemaining;
+        maxTime = maxTimeRemaining;
+        initializeWeights();
+    }
+
+    /**
+     * Carries on from a saved game.
+     *
+     * @param words As per {@link #wordListToString()}, with words which had already been found
+     *              before prefixed with "+".
+     */
+    public void restore(String[] words, int wordCount, int timeRemaining, Date start, GameStatus status) {
+        for (String word : words) {
+            if (!word.startsWith("+")) {
+                if (isWord(word)) {
+                    score += getWordScore(word);
+                }
+                wordsUsed.add(word);
+            }
+            wordList.add(word);
+        }
+
+        this.wordCount = wordCount;
+        this.timeRemaining = timeRemaining;
+        this.maxTime = timeRemaining;
+        this.start = start;
+        this.status = status;
+        initializeWeights();
+    }
+
+    /**
+     * Replaces the words found on the board, e.g. after reloading the dictionary.
+     */
+    public void setSolutions(Map<String, List<Solution>> solutions) {
+        this.solutions = solutions;
+        initializeWeights();
+    }
+
+    /**
+     * Initialize tile weights.
+     * <p>
+     * For each tile, count how many words that tile can be used for.
+     */
+    private void initializeWeights() {
+        int boardSize = board.getSize();
+        weights = new int[boardSize];
+        boolean[] seen = new boolean[boardSize];
+
+        for (Map.Entry<String, List<Solution>> entry : solutions.entrySet()) {
+            // If we're restoring a game and the word was already used, don't include
+            // it in the weights
+            if (wordList.contains(entry.getKey()) || wordList.contains("+" + entry.getKey())) {
+                continue;
+            }
+
+            // Handle multiple paths for the same word by keeping track of positions
+            // already incremented.
+            Arrays.fill(seen, false);
+            for (Solution sol : entry.getValue()) {
+                for (int pos : sol.getPath()) {
+                    if (!seen[pos]) {
+                        seen[pos] = true;
+                        weights[pos]++;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the tile weights for the given word
+     *
+     * @param word Word to remove tile weights for.
+     */
+    private void removeWeight(String word) {
+        // Handle multiple paths for the same word by keeping track of positions
+        // already decremented.
+        boolean[] seen = new boolean[board.getSize()];
+        for (Solution sol : solutions.get(word)) {
+            for (int pos : sol.getPath()) {
+                if (!seen[pos]) {
+                    seen[pos] = true;
+                    weights[pos]--;
+                }
+            }
+        }
+    }
+
+    public void start() {
+        if (status == GameStatus.GAME_STARTING) {
+            start = new Date(clock.currentTimeMillis());
+            status = GameStatus.GAME_RUNNING;
+        }
+    }
+
+    /**
+     * Most recent word first, separated by commas.
+     */
+    public String wordListToString() {
+        StringBuilder sb = new StringBuilder();
+        ListIterator<String> li = wordList.listIterator();
+
+        while (li.hasNext()) {
+            String w = li.next();
+            sb.append(w);
+            if (li.hasNext()) {
+                sb.append(",");
+            }
+        }
+
+        return sb.toString();
+    }
+
+    public WordResult addWord(String word) {
+        if (status != GameStatus.GAME_RUNNING) {
+            return WordResult.NOT_RUNNING;
+        }
+        String cap = word.toLowerCase(language.getLocale());
+
+        WordResult result;
+        if (isWord(cap)) {
+            if (wordsUsed.contains(cap)) {
+                // Word has been found before
+                wordList.addFirst("+" + word);
+                result = WordResult.ALREADY_FOUND;
+            } else {
+                // Word has not been found before
+                wordCount++;
+                score += getWordScore(cap);
+                wordList.addFirst(word);
+                removeWeight(cap);
+                result = WordResult.NEW_WORD;
+
+                if (wordCount == solutions.size()) {
+                    endNow();
+                }
+            }
+        } else {
+            // Word is not really a word
+            wordList.addFirst(word);
+            result = WordResult.NOT_A_WORD;
+        }
+        wordsUsed.add(cap);
+        return result;
+    }
+
+    public int getWordScore(String word) {
+        return getWordScore(word, scoreType, language);
+    }
+
+    public static int getWordScore(String word, ScoreType scoreType, Language language) {
+        if (scoreType == ScoreType.WORDS) {
+            return WORD_POINTS[word.length()];
+        } else {
+            int score = 0;
+            for (int i = 0; i < word.length(); i++) {
+                // Manually iterating over characters of a word here, so we are responsible for ensuring that any
+                // mandatory suffix is applied for each letter.
+                String letter = language.applyMandatorySuffix(String.valueOf(word.charAt(i)).toLowerCase());
+                score += language.getPointsForLetter(letter);
+
+                // Advance the counter so that we can skip over any suffixes.
+                i += letter.length() - 1;
+            }
+            return score;
+        }
+    }
+
+    public Language getLanguage() {
+        return language;
+    }
+
+    public ScoreType getScoreType() {
+        return scoreType;
+    }
+
+    public int getWordCount() {
+        return wordCount;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getMaxWordCount() {
+        return solutions.size();
+    }
+
+    public int getWeight(int pos) {
+        return weights[pos];
+    }
+
+    public int getMaxWeight() {
+        int max = 0;
+        for (int weight : weights) {
+            if (weight > max) {
+                max = weight;
+            }
+        }
+        return max;
+    }
+
+    public ListIterator<String> listIterator() {
+        return wordList.listIterator();
+    }
+
+    public Iterator<String> uniqueListIterator() {
+        return wordsUsed.iterator();
+    }
+
+    public boolean isWord(String word) {
+        return solutions.containsKey(word);
+    }
+
+    public Board getBoard() {
+        return board;
+    }
+
+    public Map<String, List<Solution>> getSolutions() {
+        return solutions;
+    }
+
+    /**
+     * Counts down the time remaining, finishing the game once it runs out.
+     *
+     * @return The time remaining.
+     */
+    public int tick() {
+        timeRemaining--;
+        if (timeRemaining <= 0) {
+            status = GameStatus.GAME_FINISHED;
+            timeRemaining = 0;
+        } else {
+            timeRemaining = Math.max(0, maxTime - (int) (clock.currentTimeMillis() - start.getTime()) / 10);
+        }
+        return timeRemaining;
+    }
+
+    public int getTimeRemaining() {
+        return timeRemaining;
+    }
+
+    public int getMaxTimeRemaining() {
+        return maxTimeRemaining;
+    }
+
+    /**
+     * When the game was started, or last unpaused.
+     */
+    public Date getStart() {
+        return start;
+    }
+
+    public GameStatus getStatus() {
+        return status;
+    }
+
+    public void pause() {
+        if (status == GameStatus.GAME_RUNNING)
+            status = GameStatus.GAME_PAUSED;
+    }
+
+    public void unpause() {
+        status = GameStatus.GAME_RUNNING;
+        maxTime = timeRemaining;
+        start = new Date(clock.currentTimeMillis());
+    }
+
+    /**
+     * The game finishes on the next {@link #tick()}.
+     */
+    public void endNow() {
+        timeRemaining = 0;
+    }
+
+}
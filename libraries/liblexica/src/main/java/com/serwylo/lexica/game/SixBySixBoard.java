@@ -26,6 +26,10 @@ public class SixBySixBoard extends Board {
         super(b);
     }
 
+    public SixBySixBoard(String[] b, BoardId id) {
+        super(b, id);
+    }
+
     public int getSize() {
         return SIZE;
     }
@@ -0,0 +1,184 @@
+package com.serwylo.lexica.trie;
+
+import com.serwylo.lexica.lang.Language;
+import com.serwylo.lexica.trie.util.TrieBuilder;
+
+import net.healeys.trie.TrieHeader;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Builds the tries for many languages in one go, in parallel.
+ * <p>
+ * The hash of each dictionary (along with the output format and the version of the code which
+ * writes it, see {@link #buildKey(Language)}) is remembered after each successful build, and
+ * languages whose dictionary hasn't changed since are skipped, as long as all of their output
+ * files still exist.
+ */
+class BatchTrieBuilder {
+
+    private final File dictDir;
+    private final File[] outputDirs;
+    private final TrieBuilder.Format format;
+    private final File hashesFile;
+    private final boolean force;
+
+    BatchTrieBuilder(File dictDir, File[] outputDirs, TrieBuilder.Format format, File hashesFile, boolean force) {
+        this.dictDir = dictDir;
+        this.outputDirs = outputDirs;
+        this.format = format;
+        this.hashesFile = hashesFile;
+        this.force = force;
+    }
+
+    /**
+     * @return False if any language failed to build.
+     */
+    boolean run(List<Language> languages, int threads) throws IOException {
+        Properties hashes = readHashes();
+
+        List<Language> toBuild = new ArrayList<>();
+        List<String> newHashes = new ArrayList<>();
+        for (Language language : languages) {
+            String key = buildKey(language);
+            if (!force && key.equals(hashes.getProperty(language.getName())) && outputsExist(language)) {
+                System.out.println("Skipping " + language.getName() + ", neither its dictionary nor the trie format have changed since the last build.");
+                continue;
+            }
+
+            toBuild.add(language);
+            newHashes.add(key);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, toBuild.size())));
+        List<Future<?>> results = new ArrayList<>(toBuild.size());
+        try {
+            for (Language language : toBuild) {
+                results.add(executor.submit(() -> {
+                    long startTime = System.currentTimeMillis();
+                    TrieBuilder.run(language, dictionaryFile(language), outputFiles(language), format);
+                    System.out.println("Built " + language.getName() + " in " + (System.currentTimeMillis() - startTime) + "ms");
+                    return null;
+                }));
+            }
+
+            boolean success = true;
+            for (int i = 0; i < toBuild.size(); i++) {
+                String name = toBuild.get(i).getName();
+                try {
+                    results.get(i).get();
+                    hashes.setProperty(name, newHashes.get(i));
+                } catch (ExecutionException e) {
+                    System.out.println("Error building " + name + ": " + e.getCause());
+                    hashes.remove(name);
+                    success = false;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while building tries", e);
+                }
+            }
+
+            writeHashes(hashes);
+            return success;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Changes whenever the trie for {@param language} would come out differently: When its
+     * dictionary changes, or when a different format is asked for, or when the code which writes
+     * that format changes (see {@link TrieBuilder#WRITER_VERSION}).
+     */
+    private String buildKey(Language language) throws IOException {
+        return format.name() + ":" + TrieHeader.VERSION + "." + TrieBuilder.WRITER_VERSION + ":" + sha256(dictionaryFile(language));
+    }
+
+    private File dictionaryFile(Language language) {
+        return new File(dictDir, language.getDictionaryFileName());
+    }
+
+    private File[] outputFiles(Language language) {
+        File[] files = new File[outputDirs.length];
+        for (int i = 0; i < outputDirs.length; i++) {
+            files[i] = new File(outputDirs[i], language.getTrieFileName());
+        }
+        return files;
+    }
+
+    private boolean outputsExist(Language language) {
+        for (File file : outputFiles(language)) {
+            if (!file.exists()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Properties readHashes() throws IOException {
+        Properties hashes = new Properties();
+        if (hashesFile.exists()) {
+            try (InputStream in = new FileInputStream(hashesFile)) {
+                hashes.load(in);
+            }
+        }
+        return hashes;
+    }
+
+    private void writeHashes(Properties hashes) throws IOException {
+        File dir = hashesFile.getAbsoluteFile().getParentFile();
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Could not create " + dir);
+        }
+
+        File tempFile = File.createTempFile(hashesFile.getName(), ".tmp", dir);
+        try {
+            try (OutputStream out = new FileOutputStream(tempFile)) {
+                hashes.store(out, "Dictionary hashes as of the last trie build, see " + getClass().getSimpleName());
+            }
+            Files.move(tempFile.toPath(), hashesFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tempFile.toPath());
+        }
+    }
+
+    private static String sha256(File file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        try (InputStream in = new FileInputStream(file)) {
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+}
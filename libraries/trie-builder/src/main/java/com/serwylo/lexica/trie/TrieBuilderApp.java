@@ -3,23 +3,87 @@ package com.serwylo.lexica.trie;
 import com.serwylo.lexica.lang.Language;
 import com.serwylo.lexica.trie.util.TrieBuilder;
 
+import net.healeys.trie.StringTriePatcher;
+
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
 
 public class TrieBuilderApp {
 
+    private static final String FORMAT_OPTION = "--format=";
+    private static final String THREADS_OPTION = "--threads=";
+    private static final String FORCE_OPTION = "--force";
+    private static final String PATCH_OPTION = "--patch=";
+
+    private static final String ALL_LANGUAGES = "all";
+
+    /**
+     * Where {@link BatchTrieBuilder} remembers the hash of each dictionary, relative to the
+     * dictionary directory (whose build/ directory is not checked in).
+     */
+    private static final String HASHES_FILE = "build/trie-hashes.properties";
+
     public static void main(String[] args) throws IOException {
+        // Rather than DAWG, which is smaller but can't be loaded for just one board, see TrieBuilder.Format.DAWG.
+        TrieBuilder.Format format = TrieBuilder.Format.COMPACT;
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean force = false;
+        File patchFile = null;
+        while (args.length > 0 && args[0].startsWith("--")) {
+            if (args[0].startsWith(FORMAT_OPTION)) {
+                try {
+                    format = TrieBuilder.Format.valueOf(args[0].substring(FORMAT_OPTION.length()).toUpperCase(Locale.ENGLISH));
+                } catch (IllegalArgumentException e) {
+                    System.out.println("Unsupported format: " + args[0].substring(FORMAT_OPTION.length()));
+                    printUsage();
+                    return;
+                }
+            } else if (args[0].startsWith(THREADS_OPTION)) {
+                try {
+                    threads = Integer.parseInt(args[0].substring(THREADS_OPTION.length()));
+                } catch (NumberFormatException e) {
+                    System.out.println("Invalid number of threads: " + args[0].substring(THREADS_OPTION.length()));
+                    printUsage();
+                    return;
+                }
+            } else if (args[0].equals(FORCE_OPTION)) {
+                force = true;
+            } else if (args[0].startsWith(PATCH_OPTION)) {
+                patchFile = new File(args[0].substring(PATCH_OPTION.length()));
+            } else {
+                System.out.println("Unsupported option: " + args[0]);
+                printUsage();
+                return;
+            }
+            args = Arrays.copyOfRange(args, 1, args.length);
+        }
+
+        if (patchFile != null) {
+            patch(patchFile, format, args);
+            return;
+        }
+
         if (args.length < 3) {
             printUsage();
             return;
         }
 
-        final Language language;
-        try {
-            language = Language.from(args[0]);
-        } catch (Language.NotFound e) {
-            System.out.println(e.getMessage());
-            return;
+        final List<Language> languages = new ArrayList<>();
+        if (ALL_LANGUAGES.equals(args[0])) {
+            languages.addAll(Language.getAllLanguages().values());
+        } else {
+            for (String name : args[0].split(",")) {
+                try {
+                    languages.add(Language.from(name));
+                } catch (Language.NotFound e) {
+                    System.out.println(e.getMessage());
+                    return;
+                }
+            }
         }
 
         final File dictDir = new File(args[1]);
@@ -28,33 +92,108 @@ public class TrieBuilderApp {
             return;
         }
 
+        final File[] outputDirs = new File[args.length - 2];
+        for (int i = 0; i < outputDirs.length; i++) {
+            outputDirs[i] = new File(args[i + 2]);
+            if (!outputDirs[i].exists()) {
+                printFileNotFound(outputDirs[i]);
+                return;
+            }
+        }
+
+        if (languages.size() > 1) {
+            for (Language language : languages) {
+                File dictFile = new File(dictDir, language.getDictionaryFileName());
+                if (!dictFile.exists()) {
+                    printFileNotFound(dictFile);
+                    return;
+                }
+            }
+
+            BatchTrieBuilder builder = new BatchTrieBuilder(dictDir, outputDirs, format, new File(dictDir, HASHES_FILE), force);
+            if (!builder.run(languages, threads)) {
+                System.exit(1);
+            }
+            return;
+        }
+
+        final Language language = languages.get(0);
+
         final File dictFile = new File(dictDir, language.getDictionaryFileName());
         if (!dictFile.exists()) {
             printFileNotFound(dictFile);
             return;
         }
 
-        int outputFileCount = args.length - 2;
-        final File[] outputTrieFiles = new File[outputFileCount];
-        for (int i = 0; i < outputFileCount; i++) {
-            File file = new File(args[i + 2]);
-            if (!file.exists()) {
-                printFileNotFound(file);
+        final File[] outputTrieFiles = new File[outputDirs.length];
+        for (int i = 0; i < outputDirs.length; i++) {
+            outputTrieFiles[i] = new File(outputDirs[i], language.getTrieFileName());
+        }
+
+        TrieBuilder.run(language, dictFile, outputTrieFiles, format);
+    }
+
+    /**
+     * Patches existing tries in place, rather than building them from the dictionary.
+     */
+    private static void patch(File patchFile, TrieBuilder.Format format, String[] args) throws IOException {
+        if (args.length < 3) {
+            printUsage();
+            return;
+        }
+
+        if (!format.isPatchable()) {
+            System.out.println("Only tries in the string or compact formats can be patched, other formats need to be built from the dictionary.");
+            return;
+        }
+
+        if (!patchFile.exists()) {
+            printFileNotFound(patchFile);
+            return;
+        }
+
+        final Language language;
+        try {
+            language = Language.from(args[0]);
+        } catch (Language.NotFound e) {
+            System.out.println(e.getMessage());
+            return;
+        }
+
+        final File dictFile = new File(args[1], language.getDictionaryFileName());
+        if (!dictFile.exists()) {
+            printFileNotFound(dictFile);
+            return;
+        }
+
+        final File[] trieFiles = new File[args.length - 2];
+        for (int i = 0; i < trieFiles.length; i++) {
+            trieFiles[i] = new File(args[i + 2], language.getTrieFileName());
+            if (!trieFiles[i].exists()) {
+                printFileNotFound(trieFiles[i]);
                 return;
             }
-
-            outputTrieFiles[i] = new File(file, language.getTrieFileName());
         }
 
-        TrieBuilder.run(language, dictFile, outputTrieFiles);
+        StringTriePatcher patcher = TrieBuilder.patch(language, patchFile, dictFile, trieFiles);
+        System.out.println("Added " + patcher.getWordsAdded() + " and removed " + patcher.getWordsRemoved() + " words in " + trieFiles.length + " trie(s).");
     }
 
     private static void printUsage() {
         System.out.println("Usage:");
-        System.out.println("    java -jar trie-builder.jar language path/to/dictionaries/ path/to/trie/output/ ...");
-        System.out.println("        language                  en_US|en_GB|de_DE");
+        System.out.println("    java -jar trie-builder.jar [--format=compact|compact_annotated|string|mapped|dawg] [--threads=N] [--force] language[,language...]|all path/to/dictionaries/ path/to/trie/output/ ...");
+        System.out.println("        --format=...              Binary format of the trie (default: compact).");
+        System.out.println("        --threads=N               When building more than one language, how many to build at once (default: number of processors).");
+        System.out.println("        --force                   When building more than one language, build even those whose dictionary is unchanged since the last build.");
+        System.out.println("        language                  en_US|en_GB|de_DE, a comma separated list of languages, or \"all\".");
         System.out.println("        path/to/dictionaries/     Directory where dictionary.en_US.txt et al. belong.");
         System.out.println("        path/to/trie/output/ ...  Output directories where the trie of all words will get written.");
+        System.out.println();
+        System.out.println("    java -jar trie-builder.jar --patch=path/to/changes.diff language path/to/dictionaries/ path/to/trie/output/ ...");
+        System.out.println("        --patch=...               Adds words from lines starting with \"+\" and removes words from lines starting");
+        System.out.println("                                  with \"-\" (e.g. the output of \"git diff\" on a dictionary) in existing tries.");
+        System.out.println("                                  Removed words are checked against the dictionary, which should already have the");
+        System.out.println("                                  changes applied, in case another line of it still gives the same word.");
     }
 
     private static void printFileNotFound(File file) {
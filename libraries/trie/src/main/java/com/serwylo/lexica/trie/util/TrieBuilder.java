@@ -2,30 +2,249 @@ package com.serwylo.lexica.trie.util;
 
 import com.serwylo.lexica.lang.Language;
 
+import net.healeys.trie.DawgTrie;
+import net.healeys.trie.MappedTrie;
 import net.healeys.trie.StringTrie;
+import net.healeys.trie.StringTriePatcher;
 import net.healeys.trie.Trie;
+import net.healeys.trie.TrieHeader;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 
 public class TrieBuilder {
 
+    /**
+     * Needs bumping whenever any of the formats is written differently (e.g. a change to the
+     * layout of nodes), as tools which skip building tries whose dictionary hasn't changed use it
+     * to tell that the tries need building again anyway.
+     */
+    public static final int WRITER_VERSION = 2;
+
+    /**
+     * Nodes smaller than this aren't annotated in the {@link Format#COMPACT_ANNOTATED} format.
+     * Smaller values annotate many more nodes, making the trie bigger without skipping any more of
+     * it.
+     */
+    private static final int MIN_ANNOTATED_SIZE = 1024;
+
+    public enum Format {
+
+        /**
+         * Read by {@link StringTrie.Deserializer}, which parses the parts of the trie relevant to
+         * a particular board into memory.
+         */
+        STRING(TrieHeader.Format.STRING),
+
+        /**
+         * Also read by {@link StringTrie.Deserializer}, but smaller and quicker to parse than
+         * {@link #STRING}. See {@link StringTrie#writeCompact(OutputStream)}.
+         */
+        COMPACT(TrieHeader.Format.COMPACT),
+
+        /**
+         * {@link #COMPACT}, but with large nodes annotated with the tiles that every word below
+         * them requires, so that {@link StringTrie.Deserializer} can skip them when loading for a
+         * board without one of those tiles. See {@link StringTrie#writeCompact(OutputStream, int)}.
+         * <p>
+         * Not the default, because on the boards generated for the bundled languages hardly any
+         * nodes are skipped which wouldn't have been anyway.
+         */
+        COMPACT_ANNOTATED(TrieHeader.Format.COMPACT),
+
+        /**
+         * Read by {@link MappedTrie.Deserializer}, which reads nodes lazily from a (memory mapped)
+         * buffer while solving.
+         */
+        MAPPED(TrieHeader.Format.MAPPED),
+
+        /**
+         * Read by {@link DawgTrie.Deserializer}. The trie is minimised so that shared suffixes are
+         * only stored once, and the whole graph is loaded into memory up front.
+         * <p>
+         * Not used for the tries bundled with the app, even though the files are smaller (e.g. by
+         * 40-60% for es and pl). Once subtrees are shared they can't be skipped based on the
+         * board, so every load parses the whole graph. That makes loading for a board
+         * 20-40 times slower than {@link #COMPACT}, which the app does at the start of every game.
+         */
+        DAWG(TrieHeader.Format.DAWG);
+
+        private final TrieHeader.Format headerFormat;
+
+        Format(TrieHeader.Format headerFormat) {
+            this.headerFormat = headerFormat;
+        }
+
+        public TrieHeader.Format getHeaderFormat() {
+            return headerFormat;
+        }
+
+        /**
+         * Whether tries in this format can be changed by {@link #patch(Language, File, File, File[])}.
+         */
+        public boolean isPatchable() {
+            return headerFormat == TrieHeader.Format.STRING || headerFormat == TrieHeader.Format.COMPACT;
+        }
+
+    }
+
     public static void run(Language language, File dictFile, File[] outputTrieFiles) throws IOException {
-        Trie outTrie = new StringTrie(language);
+        run(language, dictFile, outputTrieFiles, Format.COMPACT);
+    }
+
+    public static void run(Language language, File dictFile, File[] outputTrieFiles, Format format) throws IOException {
+        StringTrie outTrie = new StringTrie(language);
 
         readCorpus(language, dictFile, outTrie);
 
+        byte[] serialized = serialize(outTrie, language, format);
         for (File outputFile : outputTrieFiles) {
-            try (FileOutputStream of = new FileOutputStream(outputFile, false)) {
-                outTrie.write(new DataOutputStream(of));
+            writeAtomically(outputFile, out -> out.write(serialized));
+        }
+    }
+
+    /**
+     * Applies the changes in {@param diffFile} to each of {@param trieFiles}, which must have been
+     * built in a format which {@link Format#isPatchable()}, instead of building them again from the
+     * whole dictionary.
+     * <p>
+     * Each line of the diff which starts with "+" is a word to add, and each line which starts
+     * with "-" is a word to remove. Anything else is ignored, so the output of "git diff" on a
+     * dictionary file can be used as is.
+     * <p>
+     * Words are lower cased when building a trie, so several lines of a dictionary can end up as
+     * the same word, and a word can be moved (removed in one place and added in another). Hence
+     * the lines for each word are counted up rather than applied one at a time, and a word is only
+     * removed if no line of {@param dictFile} (the dictionary after the diff was applied) still
+     * gives it, so that the result has the same words as a fresh build from {@param dictFile}.
+     */
+    public static StringTriePatcher patch(Language language, File diffFile, File dictFile, File[] trieFiles) throws IOException {
+        Map<String, Integer> changes = new HashMap<>();
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(diffFile), Charset.forName("UTF-8")))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                if (line.startsWith("+++ ") || line.startsWith("--- ") || line.length() < 2) {
+                    continue;
+                }
+
+                String word = line.substring(1).trim().toLowerCase(language.getLocale());
+                if (line.charAt(0) == '+') {
+                    changes.merge(word, 1, Integer::sum);
+                } else if (line.charAt(0) == '-') {
+                    changes.merge(word, -1, Integer::sum);
+                }
+            }
+        }
+
+        StringTriePatcher patcher = new StringTriePatcher(language);
+        Set<String> removed = new HashSet<>();
+        for (Map.Entry<String, Integer> change : changes.entrySet()) {
+            if (change.getValue() > 0) {
+                patcher.addWord(change.getKey());
+            } else if (change.getValue() < 0) {
+                removed.add(change.getKey());
+            }
+        }
+
+        if (!removed.isEmpty()) {
+            try (BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(dictFile), Charset.forName("UTF-8")))) {
+                String line;
+                while ((line = br.readLine()) != null) {
+                    removed.remove(line.toLowerCase(language.getLocale()));
+                }
+            }
+            patcher.removeWords(removed);
+        }
+
+        for (File trieFile : trieFiles) {
+            writeAtomically(trieFile, out -> {
+                try (FileInputStream in = new FileInputStream(trieFile)) {
+                    patcher.patch(in, out);
+                }
+            });
+        }
+
+        return patcher;
+    }
+
+    private interface Writer {
+        void write(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Writes to a temporary file next to {@param outputFile} and then moves it into place, so that
+     * a build which fails (or is interrupted) part way through never leaves a truncated trie.
+     */
+    private static void writeAtomically(File outputFile, Writer writer) throws IOException {
+        File tempFile = File.createTempFile(outputFile.getName(), ".tmp", outputFile.getAbsoluteFile().getParentFile());
+        try {
+            try (OutputStream of = new BufferedOutputStream(new FileOutputStream(tempFile, false))) {
+                writer.write(of);
             }
+
+            try {
+                Files.move(tempFile.toPath(), outputFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile.toPath(), outputFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile.toPath());
+        }
+    }
+
+    /**
+     * @return The contents of a trie file, starting with a {@link TrieHeader}.
+     */
+    public static byte[] serialize(StringTrie trie, Language language, Format format) throws IOException {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        write(trie, payload, format);
+        byte[] payloadBytes = payload.toByteArray();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(payloadBytes.length + 64);
+        new TrieHeader(format.headerFormat, language.getName(), trie.getWordCount(), payloadBytes).write(out);
+        out.write(payloadBytes);
+        return out.toByteArray();
+    }
+
+    private static void write(StringTrie trie, OutputStream out, Format format) throws IOException {
+        switch (format) {
+            case STRING:
+                trie.write(new DataOutputStream(out));
+                break;
+
+            case COMPACT:
+                trie.writeCompact(out);
+                break;
+
+            case COMPACT_ANNOTATED:
+                trie.writeCompact(out, MIN_ANNOTATED_SIZE);
+                break;
+
+            case MAPPED:
+                MappedTrie.write(trie, out);
+                break;
+
+            case DAWG:
+                DawgTrie.from(trie).write(out);
+                break;
         }
+        out.flush();
     }
 
     private static void readCorpus(Language language, File dictFile, Trie trie) throws IOException {
@@ -0,0 +1,178 @@
+package com.serwylo.lexica.trie.util;
+
+import com.serwylo.lexica.lang.Language;
+
+import net.healeys.trie.StringTrie;
+import net.healeys.trie.TransitionMap;
+import net.healeys.trie.Trie;
+import net.healeys.trie.TrieHeader;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the serialized dictionary for recently used languages in memory, so that each new board
+ * only has to deserialize from a byte array instead of going back to disk (or an Android raw
+ * resource) for the whole file.
+ * <p>
+ * The {@link StringTrie.Deserializer} prunes the trie based on the letters which are on the board,
+ * so it is the raw bytes that are cached rather than any one parsed trie. These are a fraction of
+ * the size of a fully parsed trie, and every board for the same language can share them.
+ * <p>
+ * The bytes are checked against the checksum in their {@link TrieHeader} once, when they are first
+ * read. After that, each board reads them in place, skipping straight over the parts of the trie
+ * which can't be reached on the board, or which need more copies of a tile than the board has.
+ * <p>
+ * Languages are evicted least recently used first once the total size goes over the limit given
+ * to the constructor. The most recently used language is always kept, even if it alone is
+ * over the limit.
+ */
+public class TrieCache {
+
+    public interface Source {
+
+        /**
+         * Open the serialized trie for {@param language}. The cache will close the stream.
+         */
+        InputStream open(Language language) throws IOException;
+
+    }
+
+    private final Source source;
+    private final long maxBytes;
+
+    /**
+     * Keyed by {@link Language#getName()}, because the same language may be represented by more
+     * than one {@link Language} instance. Iterates from least to most recently used.
+     */
+    private final LinkedHashMap<String, byte[]> cache = new LinkedHashMap<>(4, 0.75f, true);
+    private long sizeInBytes = 0;
+
+    public TrieCache(Source source, long maxBytes) {
+        this.source = source;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Deserialize a trie for {@param language}, pruned to only the words which may appear
+     * on {@param board}. The {@link net.healeys.trie.Deserializer} is chosen based on the
+     * {@link TrieHeader} of the file.
+     */
+    public Trie load(Language language, TransitionMap board) throws IOException {
+        byte[] bytes = getBytes(language);
+        TrieHeader header = TrieHeader.read(new ByteArrayInputStream(bytes));
+        if (header == null || header.getFormat() == TrieHeader.Format.STRING || header.getFormat() == TrieHeader.Format.COMPACT) {
+            return new StringTrie.Deserializer(true).deserialize(ByteBuffer.wrap(bytes), board, language);
+        }
+
+        return TrieHeader.deserialize(new ByteArrayInputStream(bytes), board, language);
+    }
+
+    /**
+     * Reads only the header of the trie for {@param language}, e.g. to find out how many words
+     * it has. If the trie isn't already cached, this doesn't cache it either.
+     *
+     * @return Null if the trie was built before headers were added.
+     */
+    public TrieHeader readHeader(Language language) throws IOException {
+        synchronized (this) {
+            byte[] bytes = cache.get(language.getName());
+            if (bytes != null) {
+                return TrieHeader.read(new ByteArrayInputStream(bytes));
+            }
+        }
+
+        try (InputStream stream = source.open(language)) {
+            return TrieHeader.read(stream);
+        }
+    }
+
+    /**
+     * A stream over the serialized trie for {@param language}, which only hits the
+     * {@link Source} if it is not already cached.
+     */
+    public InputStream open(Language language) throws IOException {
+        return new ByteArrayInputStream(getBytes(language));
+    }
+
+    private byte[] getBytes(Language language) throws IOException {
+        synchronized (this) {
+            byte[] bytes = cache.get(language.getName());
+            if (bytes != null) {
+                return bytes;
+            }
+        }
+
+        // Read outside of the lock so that reading one language doesn't block others which
+        // are already cached. Two threads may occasionally read the same language at once,
+        // in which case the last one wins.
+        byte[] bytes = readFully(language);
+        TrieHeader.readAndVerify(ByteBuffer.wrap(bytes));
+
+        synchronized (this) {
+            byte[] previous = cache.put(language.getName(), bytes);
+            if (previous != null) {
+                sizeInBytes -= previous.length;
+            }
+            sizeInBytes += bytes.length;
+            trimToSize();
+        }
+
+        return bytes;
+    }
+
+    private byte[] readFully(Language language) throws IOException {
+        try (InputStream stream = source.open(language)) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = stream.read(buffer)) != -1) {
+                bytes.write(buffer, 0, read);
+            }
+            return bytes.toByteArray();
+        }
+    }
+
+    private void trimToSize() {
+        Iterator<Map.Entry<String, byte[]>> it = cache.entrySet().iterator();
+        while (sizeInBytes > maxBytes && cache.size() > 1 && it.hasNext()) {
+            sizeInBytes -= it.next().getValue().length;
+            it.remove();
+        }
+    }
+
+    /**
+     * Drop all languages apart from {@param language}, e.g. after the user picks a new language
+     * and is unlikely to go back to the old one any time soon.
+     */
+    public synchronized void evictAllExcept(Language language) {
+        Iterator<Map.Entry<String, byte[]>> it = cache.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, byte[]> entry = it.next();
+            if (!entry.getKey().equals(language.getName())) {
+                sizeInBytes -= entry.getValue().length;
+                it.remove();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        cache.clear();
+        sizeInBytes = 0;
+    }
+
+    public synchronized boolean contains(Language language) {
+        return cache.containsKey(language.getName());
+    }
+
+    public synchronized long sizeInBytes() {
+        return sizeInBytes;
+    }
+
+}
@@ -0,0 +1,110 @@
+package net.healeys.trie;
+
+/**
+ * A snapshot of a {@link TransitionMap} which is built once per board and then queried many
+ * times while solving.
+ * <p>
+ * The solvers used to ask the {@link TransitionMap} whether every cell on the board could be
+ * reached from the current cell, which means a full scan of the grid for every node visited in
+ * the trie. Instead, this precomputes the list of neighbours for each cell (in the same order
+ * that the full grid scan would have visited them) along with the value at each cell, so the
+ * solver only has to walk a small int[] for each step.
+ * <p>
+ * Cells which have been visited are tracked as bits in a long by the solvers, which is why boards
+ * which do not allow revisiting cells are limited to {@link #MAX_CELLS} cells.
+ */
+class AdjacencyTable {
+
+    static final int MAX_CELLS = Long.SIZE;
+
+    private final int[][] neighbours;
+    private final String[] values;
+    private final int[] tiles;
+    private final boolean canRevisit;
+
+    AdjacencyTable(TransitionMap transitions) {
+        this(transitions, null);
+    }
+
+    /**
+     * @param alphabet If not null, the {@link TileAlphabet} id of each cell is looked up once here
+     *                 (see {@link #tileAt(int)}), so that solvers never need to hash a tile.
+     */
+    AdjacencyTable(TransitionMap transitions, TileAlphabet alphabet) {
+        int width = transitions.getWidth();
+        int cells = width * width;
+
+        canRevisit = transitions.canRevisit();
+        if (!canRevisit && cells > MAX_CELLS) {
+            throw new IllegalArgumentException("Boards which can't revisit cells can have at most " + MAX_CELLS + " cells, but this has " + cells);
+        }
+
+        values = new String[cells];
+        for (int i = 0; i < cells; i++) {
+            values[i] = transitions.valueAt(i);
+        }
+
+        tiles = alphabet == null ? null : new int[cells];
+        if (tiles != null) {
+            for (int i = 0; i < cells; i++) {
+                tiles[i] = values[i] == null ? TileAlphabet.NO_TILE : alphabet.idOf(values[i]);
+            }
+        }
+
+        neighbours = new int[cells][];
+        int[] buffer = new int[cells];
+        for (int from = 0; from < cells; from++) {
+            int fromX = from % width;
+            int fromY = from / width;
+
+            int count = 0;
+            for (int toX = 0; toX < width; toX++) {
+                for (int toY = 0; toY < width; toY++) {
+                    if (transitions.canTransition(fromX, fromY, toX, toY)) {
+                        buffer[count++] = toX + width * toY;
+                    }
+                }
+            }
+
+            neighbours[from] = new int[count];
+            System.arraycopy(buffer, 0, neighbours[from], 0, count);
+        }
+    }
+
+    /**
+     * Number of cells in the table. This is the full width x width grid, which may be larger than
+     * {@link TransitionMap#getSize()} for maps which are not perfectly square.
+     */
+    int size() {
+        return values.length;
+    }
+
+    int[] neighboursOf(int position) {
+        return neighbours[position];
+    }
+
+    String valueAt(int position) {
+        return values[position];
+    }
+
+    /**
+     * The {@link TileAlphabet} id of the value at {@param position}, or {@link TileAlphabet#NO_TILE}
+     * if no trie has that tile. Only available if an alphabet was passed to the constructor.
+     */
+    int tileAt(int position) {
+        return tiles[position];
+    }
+
+    boolean canRevisit() {
+        return canRevisit;
+    }
+
+    /**
+     * Bit to set in the "used" mask when the solver moves onto {@param position}, or zero if the
+     * board allows cells to be revisited (in which case nothing ever needs to be marked as used).
+     */
+    long bitFor(int position) {
+        return canRevisit ? 0 : 1L << position;
+    }
+
+}
@@ -0,0 +1,70 @@
+package net.healeys.trie;
+
+import java.io.InputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads from the position of a {@link ByteBuffer} up to its limit, moving the position along as it
+ * goes. Skipping only moves the position, so skipping over part of a memory mapped file never
+ * touches the pages in between.
+ * <p>
+ * The buffer is cast to {@link Buffer} when moving its position, because {@link ByteBuffer} only
+ * overrides those methods from Java 9 onwards, which older runtimes (and Android) can't link against.
+ */
+final class ByteBufferInputStream extends InputStream {
+
+    private final ByteBuffer buffer;
+
+    ByteBufferInputStream(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    @Override
+    public int read() {
+        return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+        if (len == 0) {
+            return 0;
+        }
+
+        if (!buffer.hasRemaining()) {
+            return -1;
+        }
+
+        int count = Math.min(len, buffer.remaining());
+        buffer.get(b, off, count);
+        return count;
+    }
+
+    @Override
+    public long skip(long n) {
+        int count = (int) Math.max(0, Math.min(n, buffer.remaining()));
+        ((Buffer) buffer).position(buffer.position() + count);
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return buffer.remaining();
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public void mark(int readLimit) {
+        ((Buffer) buffer).mark();
+    }
+
+    @Override
+    public void reset() {
+        ((Buffer) buffer).reset();
+    }
+
+}
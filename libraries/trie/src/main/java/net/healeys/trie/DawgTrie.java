@@ -0,0 +1,306 @@
+package net.healeys.trie;
+
+import com.serwylo.lexica.lang.Language;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * A directed acyclic word graph, also known as a minimal acyclic automaton.
+ * <p>
+ * This accepts exactly the same words as the {@link StringTrie} it was built from, but any nodes
+ * with identical subtrees are merged together. Dictionaries share a great deal of suffixes
+ * (e.g. "-ing", "-tion", "-ungen"), and in a trie each of these are stored once for every word
+ * which ends with them. In a DAWG they are stored once.
+ * <p>
+ * Because a node may now be reached by more than one path, the graph is stored as arrays of node
+ * and edge indexes, rather than objects. The entire graph is small enough to be loaded up front,
+ * so unlike {@link StringTrie.Deserializer}, nothing is pruned based on the board.
+ * <p>
+ * The binary format is (all numbers big endian):
+ * <pre>
+ *   int     number of tiles
+ *   for each tile:
+ *     byte    length of the tile in bytes
+ *     byte[]  UTF-8 encoded tile
+ *   int     number of nodes (the root is node 0)
+ *   int     number of edges
+ *   for each node:
+ *     byte    flags (1 if this node is the end of a word)
+ *     short   number of edges leaving this node
+ *   for each edge, grouped by the node they leave from:
+ *     short   index of the tile
+ *     int     index of the node this edge leads to
+ * </pre>
+ */
+public class DawgTrie extends IndexedTrie<Integer> {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final int FLAG_WORD = 1;
+
+    private final String[] tiles;
+    private final Map<String, Integer> tileIndexes;
+
+    private final boolean[] wordNodes;
+
+    /**
+     * Edges leaving node n are at indexes firstEdges[n] (inclusive) to firstEdges[n + 1] (exclusive).
+     */
+    private final int[] firstEdges;
+    private final int[] edgeTiles;
+    private final int[] edgeTargets;
+
+    private DawgTrie(Language language, String[] tiles, boolean[] wordNodes, int[] firstEdges, int[] edgeTiles, int[] edgeTargets) {
+        super(language);
+        this.tiles = tiles;
+        this.wordNodes = wordNodes;
+        this.firstEdges = firstEdges;
+        this.edgeTiles = edgeTiles;
+        this.edgeTargets = edgeTargets;
+
+        tileIndexes = new HashMap<>(tiles.length * 2);
+        for (int i = 0; i < tiles.length; i++) {
+            tileIndexes.put(tiles[i], i);
+        }
+    }
+
+    public int getNodeCount() {
+        return wordNodes.length;
+    }
+
+    public int getEdgeCount() {
+        return edgeTiles.length;
+    }
+
+    @Override
+    int rootNode() {
+        return 0;
+    }
+
+    @Override
+    boolean isWordNode(int node) {
+        return wordNodes[node];
+    }
+
+    @Override
+    boolean hasChildren(int node) {
+        return firstEdges[node] != firstEdges[node + 1];
+    }
+
+    @Override
+    Integer keyFor(String tile) {
+        return tileIndexes.get(tile);
+    }
+
+    @Override
+    int childAt(int node, Integer tile) {
+        int tileIndex = tile;
+        for (int edge = firstEdges[node]; edge < firstEdges[node + 1]; edge++) {
+            if (edgeTiles[edge] == tileIndex) {
+                return edgeTargets[edge];
+            }
+        }
+        return NO_NODE;
+    }
+
+    @Override
+    public void write(OutputStream out) throws IOException {
+        DataOutputStream output = new DataOutputStream(out);
+
+        output.writeInt(tiles.length);
+        for (String tile : tiles) {
+            byte[] bytes = tile.getBytes(UTF_8);
+            output.writeByte(bytes.length);
+            output.write(bytes);
+        }
+
+        output.writeInt(wordNodes.length);
+        output.writeInt(edgeTiles.length);
+
+        for (int node = 0; node < wordNodes.length; node++) {
+            output.writeByte(wordNodes[node] ? FLAG_WORD : 0);
+            output.writeShort(firstEdges[node + 1] - firstEdges[node]);
+        }
+
+        for (int edge = 0; edge < edgeTiles.length; edge++) {
+            output.writeShort(edgeTiles[edge]);
+            output.writeInt(edgeTargets[edge]);
+        }
+
+        output.flush();
+    }
+
+    /**
+     * Minimises {@param trie} by merging all nodes which have identical subtrees.
+     * <p>
+     * Nodes are visited children first, so by the time a node is visited all of its children have
+     * already been replaced by their canonical (merged) node. Two nodes are then equivalent if they
+     * are both (or both not) the end of a word, and have the same tiles leading to the same
+     * canonical children.
+     */
+    public static DawgTrie from(StringTrie trie) {
+        String[] tiles = collectTiles(trie.rootNode());
+        Map<String, Integer> tileIndexes = new HashMap<>(tiles.length * 2);
+        for (int i = 0; i < tiles.length; i++) {
+            tileIndexes.put(tiles[i], i);
+        }
+
+        Map<Signature, Integer> canonicalNodes = new HashMap<>();
+        List<Signature> nodes = new ArrayList<>();
+        minimise(trie.rootNode(), tileIndexes, canonicalNodes, nodes);
+
+        // The root is the very last node to be visited. Number the nodes in reverse so that the
+        // root ends up as node 0.
+        int nodeCount = nodes.size();
+        int edgeCount = 0;
+        for (Signature node : nodes) {
+            edgeCount += node.tiles.length;
+        }
+
+        boolean[] wordNodes = new boolean[nodeCount];
+        int[] firstEdges = new int[nodeCount + 1];
+        int[] edgeTiles = new int[edgeCount];
+        int[] edgeTargets = new int[edgeCount];
+
+        int edge = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            Signature signature = nodes.get(nodeCount - 1 - node);
+            wordNodes[node] = signature.isWord;
+            firstEdges[node] = edge;
+            for (int i = 0; i < signature.tiles.length; i++) {
+                edgeTiles[edge] = signature.tiles[i];
+                edgeTargets[edge] = nodeCount - 1 - signature.children[i];
+                edge++;
+            }
+        }
+        firstEdges[nodeCount] = edge;
+
+        return new DawgTrie(trie.language, tiles, wordNodes, firstEdges, edgeTiles, edgeTargets);
+    }
+
+    private static String[] collectTiles(StringTrie.Node root) {
+        TreeSet<String> tiles = new TreeSet<>();
+        List<StringTrie.Node> toVisit = new ArrayList<>();
+        toVisit.add(root);
+        while (!toVisit.isEmpty()) {
+            StringTrie.Node node = toVisit.remove(toVisit.size() - 1);
+            tiles.addAll(node.children().keySet());
+            toVisit.addAll(node.children().values());
+        }
+        return tiles.toArray(new String[0]);
+    }
+
+    private static int minimise(StringTrie.Node node, Map<String, Integer> tileIndexes, Map<Signature, Integer> canonicalNodes, List<Signature> nodes) {
+        List<String> childTiles = new ArrayList<>(node.children().keySet());
+        Collections.sort(childTiles);
+
+        int[] tiles = new int[childTiles.size()];
+        int[] children = new int[childTiles.size()];
+        for (int i = 0; i < childTiles.size(); i++) {
+            String tile = childTiles.get(i);
+            tiles[i] = tileIndexes.get(tile);
+            children[i] = minimise(node.children().get(tile), tileIndexes, canonicalNodes, nodes);
+        }
+
+        Signature signature = new Signature(node.word(), tiles, children);
+        Integer existing = canonicalNodes.get(signature);
+        if (existing != null) {
+            return existing;
+        }
+
+        int index = nodes.size();
+        nodes.add(signature);
+        canonicalNodes.put(signature, index);
+        return index;
+    }
+
+    private static class Signature {
+
+        final boolean isWord;
+        final int[] tiles;
+        final int[] children;
+        private final int hashCode;
+
+        Signature(boolean isWord, int[] tiles, int[] children) {
+            this.isWord = isWord;
+            this.tiles = tiles;
+            this.children = children;
+            this.hashCode = 31 * (31 * (isWord ? 1 : 0) + Arrays.hashCode(tiles)) + Arrays.hashCode(children);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Signature)) {
+                return false;
+            }
+
+            Signature other = (Signature) o;
+            return isWord == other.isWord && Arrays.equals(tiles, other.tiles) && Arrays.equals(children, other.children);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    /**
+     * Reads the entire graph into memory. Nothing is pruned based on the {@link TransitionMap},
+     * so it may be null, and the resulting trie can be shared between boards.
+     */
+    public static class Deserializer implements net.healeys.trie.Deserializer<DawgTrie> {
+        @Override
+        public DawgTrie deserialize(InputStream stream, TransitionMap transitionMap, Language language) throws IOException {
+            TrieHeader.Payload payload = TrieHeader.open(new BufferedInputStream(stream), language, TrieHeader.Format.DAWG);
+            DataInputStream input = new DataInputStream(new BufferedInputStream(payload));
+
+            String[] tiles = new String[input.readInt()];
+            for (int i = 0; i < tiles.length; i++) {
+                byte[] bytes = new byte[input.readUnsignedByte()];
+                input.readFully(bytes);
+                tiles[i] = new String(bytes, UTF_8);
+            }
+
+            int nodeCount = input.readInt();
+            int edgeCount = input.readInt();
+
+            boolean[] wordNodes = new boolean[nodeCount];
+            int[] firstEdges = new int[nodeCount + 1];
+            int edge = 0;
+            for (int node = 0; node < nodeCount; node++) {
+                wordNodes[node] = (input.readByte() & FLAG_WORD) != 0;
+                firstEdges[node] = edge;
+                edge += input.readUnsignedShort();
+            }
+            firstEdges[nodeCount] = edge;
+
+            if (edge != edgeCount) {
+                throw new IOException("Expected " + edgeCount + " edges in DAWG, but nodes refer to " + edge);
+            }
+
+            int[] edgeTiles = new int[edgeCount];
+            int[] edgeTargets = new int[edgeCount];
+            for (int i = 0; i < edgeCount; i++) {
+                edgeTiles[i] = input.readUnsignedShort();
+                edgeTargets[i] = input.readInt();
+            }
+
+            payload.finish();
+            return new DawgTrie(language, tiles, wordNodes, firstEdges, edgeTiles, edgeTargets);
+        }
+    }
+
+}
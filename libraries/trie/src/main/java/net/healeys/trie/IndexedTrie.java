@@ -0,0 +1,166 @@
+package net.healeys.trie;
+
+import com.serwylo.lexica.lang.Language;
+
+import java.util.Arrays;
+
+/**
+ * Base class for read only tries which refer to their nodes by an int (e.g. an offset into a
+ * buffer, or an index into an array) rather than by objects on the heap.
+ * <p>
+ * Subclasses only need to describe how to navigate from one node to the next, and this takes care
+ * of looking up words and solving boards.
+ *
+ * @param <K> Whatever representation of a tile is cheapest for {@link #childAt(int, Object)} to
+ *            compare against (e.g. UTF-8 bytes, or an index into a table of tiles). These are
+ *            calculated once per cell on the board, rather than for each step of the solver.
+ */
+abstract class IndexedTrie<K> extends Trie {
+
+    static final int NO_NODE = -1;
+
+    IndexedTrie(Language language) {
+        super(language);
+    }
+
+    abstract int rootNode();
+
+    abstract boolean isWordNode(int node);
+
+    abstract boolean hasChildren(int node);
+
+    /**
+     * @return The key to pass to {@link #childAt(int, Object)} for {@param tile}, or null if that
+     * tile never appears in this trie.
+     */
+    abstract K keyFor(String tile);
+
+    /**
+     * @return The child of {@param node} for the tile represented by {@param key}, or
+     * {@link #NO_NODE} if there is no such child.
+     */
+    abstract int childAt(int node, K key);
+
+    @Override
+    public void addWord(String w) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " is read only. Build a StringTrie and then convert it instead.");
+    }
+
+    @Override
+    public boolean isWord(String word) {
+        int node = rootNode();
+        int position = 0;
+        while (position < word.length()) {
+            String tile = tileAt(language, word, position);
+            K key = keyFor(tile);
+            if (key == null) {
+                return false;
+            }
+
+            node = childAt(node, key);
+            if (node == NO_NODE) {
+                return false;
+            }
+
+            position += tile.length();
+        }
+        return isWordNode(node);
+    }
+
+    @Override
+    public void solve(TransitionMap transitions, WordFilter filter, SolutionSink sink) {
+        Solver solver = new Solver(new AdjacencyTable(transitions), filter, sink);
+        for (int i = 0; i < transitions.getSize(); i++) {
+            solver.solveFrom(i);
+        }
+    }
+
+    /**
+     * The same depth first search as {@link StringTrie}, except that it walks int node references
+     * instead of objects.
+     */
+    private class Solver {
+
+        private final AdjacencyTable table;
+        private final WordFilter wordFilter;
+        private final SolutionSink sink;
+        private final StringBuilder prefix = new StringBuilder();
+        private final K[] keys;
+        private int[] path;
+
+        @SuppressWarnings("unchecked")
+        Solver(AdjacencyTable table, WordFilter wordFilter, SolutionSink sink) {
+            this.table = table;
+            this.wordFilter = wordFilter;
+            this.sink = sink;
+            this.path = new int[Math.min(table.size(), AdjacencyTable.MAX_CELLS) + 1];
+
+            keys = (K[]) new Object[table.size()];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = keyFor(table.valueAt(i));
+            }
+        }
+
+        void solveFrom(int position) {
+            if (keys[position] == null) {
+                return;
+            }
+
+            int startNode = childAt(rootNode(), keys[position]);
+            if (startNode == NO_NODE) {
+                return;
+            }
+
+            prefix.append(table.valueAt(position));
+            path[0] = position;
+            visit(startNode, position, 0, 1);
+            prefix.setLength(0);
+        }
+
+        private void visit(int node, int pos, long usedPositions, int depth) {
+
+            if (isWordNode(node)) {
+                record(depth);
+            }
+
+            if (!hasChildren(node)) {
+                return;
+            }
+
+            usedPositions |= table.bitFor(pos);
+
+            if (depth == path.length) {
+                path = Arrays.copyOf(path, path.length * 2);
+            }
+
+            for (int toPosition : table.neighboursOf(pos)) {
+                if ((usedPositions & table.bitFor(toPosition)) != 0 || keys[toPosition] == null) {
+                    continue;
+                }
+
+                int nextNode = childAt(node, keys[toPosition]);
+                if (nextNode == NO_NODE) {
+                    continue;
+                }
+
+                int prefixLength = prefix.length();
+                prefix.append(table.valueAt(toPosition));
+                path[depth] = toPosition;
+
+                visit(nextNode, toPosition, usedPositions, depth + 1);
+
+                prefix.setLength(prefixLength);
+            }
+        }
+
+        private void record(int depth) {
+            String w = prefix.toString();
+            if (wordFilter != null && !wordFilter.isWord(w)) {
+                return;
+            }
+
+            sink.onSolution(w, path, depth);
+        }
+    }
+
+}
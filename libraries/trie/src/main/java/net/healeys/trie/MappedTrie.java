@@ -0,0 +1,217 @@
+package net.healeys.trie;
+
+import com.serwylo.lexica.lang.Language;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A trie which is read directly out of a {@link ByteBuffer} (usually a memory mapped file), rather
+ * than being parsed into objects up front.
+ * <p>
+ * Unlike the format written by {@link StringTrie}, each node includes the offset of each of its
+ * children, so the solver can jump straight to the children it needs. Only the parts of the
+ * dictionary which are reachable from the board are ever read, and nothing needs to be thrown
+ * away and parsed again for the next board.
+ * <p>
+ * Each node is laid out as follows (all numbers are big endian, offsets are relative to the start
+ * of the buffer, the root node is at offset 0, and children are sorted by their tile):
+ * <pre>
+ *   byte   flags (1 if this node is the end of a word)
+ *   short  number of children
+ *   for each child:
+ *     byte    length of the tile in bytes
+ *     byte[]  UTF-8 encoded tile
+ *     int     offset of the child node
+ * </pre>
+ */
+public class MappedTrie extends IndexedTrie<byte[]> {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final int FLAG_WORD = 1;
+
+    private static final int NODE_HEADER_SIZE = 3;
+    private static final int CHILD_OFFSET_SIZE = 4;
+
+    private final ByteBuffer buffer;
+
+    public MappedTrie(Language language, ByteBuffer buffer) {
+        super(language);
+        this.buffer = buffer.slice().order(ByteOrder.BIG_ENDIAN);
+    }
+
+    /**
+     * Memory maps {@param file} rather than reading it onto the heap.
+     */
+    public static MappedTrie map(File file, Language language) throws IOException {
+        try (FileInputStream stream = new FileInputStream(file)) {
+            return new Deserializer().deserialize(stream, null, language);
+        }
+    }
+
+    @Override
+    int rootNode() {
+        return 0;
+    }
+
+    @Override
+    boolean isWordNode(int node) {
+        return (buffer.get(node) & FLAG_WORD) != 0;
+    }
+
+    @Override
+    boolean hasChildren(int node) {
+        return buffer.getShort(node + 1) != 0;
+    }
+
+    @Override
+    byte[] keyFor(String tile) {
+        return tile.getBytes(UTF_8);
+    }
+
+    @Override
+    int childAt(int node, byte[] tile) {
+        int numChildren = buffer.getShort(node + 1) & 0xFFFF;
+        int position = node + NODE_HEADER_SIZE;
+        for (int i = 0; i < numChildren; i++) {
+            int length = buffer.get(position) & 0xFF;
+            if (length == tile.length && matches(position + 1, tile)) {
+                return buffer.getInt(position + 1 + length);
+            }
+            position += 1 + length + CHILD_OFFSET_SIZE;
+        }
+        return NO_NODE;
+    }
+
+    private boolean matches(int position, byte[] tile) {
+        for (int i = 0; i < tile.length; i++) {
+            if (buffer.get(position + i) != tile[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void write(OutputStream out) throws IOException {
+        ByteBuffer contents = buffer.duplicate();
+        contents.rewind();
+        Channels.newChannel(out).write(contents);
+    }
+
+    /**
+     * Writes {@param trie} out in the format read by {@link MappedTrie}.
+     * <p>
+     * The size of every subtree is calculated first so that the offset of each child is known
+     * before it is written, which means the nodes can be streamed straight to {@param out}.
+     */
+    public static void write(StringTrie trie, OutputStream out) throws IOException {
+        Map<StringTrie.Node, Integer> subtreeSizes = new IdentityHashMap<>();
+        calcSubtreeSize(trie.rootNode(), subtreeSizes);
+
+        DataOutputStream output = new DataOutputStream(out);
+        writeNode(trie.rootNode(), 0, subtreeSizes, output);
+        output.flush();
+    }
+
+    private static int calcSubtreeSize(StringTrie.Node node, Map<StringTrie.Node, Integer> subtreeSizes) {
+        int size = calcNodeSize(node);
+        for (StringTrie.Node child : node.children().values()) {
+            size += calcSubtreeSize(child, subtreeSizes);
+        }
+        subtreeSizes.put(node, size);
+        return size;
+    }
+
+    private static int calcNodeSize(StringTrie.Node node) {
+        int size = NODE_HEADER_SIZE;
+        for (String tile : node.children().keySet()) {
+            size += 1 + tile.getBytes(UTF_8).length + CHILD_OFFSET_SIZE;
+        }
+        return size;
+    }
+
+    private static void writeNode(StringTrie.Node node, int offset, Map<StringTrie.Node, Integer> subtreeSizes, DataOutputStream output) throws IOException {
+        List<String> tiles = new ArrayList<>(node.children().keySet());
+        Collections.sort(tiles);
+
+        output.writeByte(node.word() ? FLAG_WORD : 0);
+        output.writeShort(tiles.size());
+
+        int childOffset = offset + calcNodeSize(node);
+        for (String tile : tiles) {
+            byte[] bytes = tile.getBytes(UTF_8);
+            output.writeByte(bytes.length);
+            output.write(bytes);
+            output.writeInt(childOffset);
+            childOffset += subtreeSizes.get(node.children().get(tile));
+        }
+
+        childOffset = offset + calcNodeSize(node);
+        for (String tile : tiles) {
+            StringTrie.Node child = node.children().get(tile);
+            writeNode(child, childOffset, subtreeSizes, output);
+            childOffset += subtreeSizes.get(child);
+        }
+    }
+
+    /**
+     * Does not prune anything based on the {@link TransitionMap} (it may be null), because the
+     * trie is only ever read lazily while solving.
+     * <p>
+     * If the stream is a {@link FileInputStream}, the rest of the file is memory mapped. Otherwise,
+     * the remainder of the stream is read into a buffer on the heap.
+     * <p>
+     * If the file has a {@link TrieHeader}, the whole buffer is read once up front to check it
+     * against the checksum in the header.
+     */
+    public static class Deserializer implements net.healeys.trie.Deserializer<MappedTrie> {
+        @Override
+        public MappedTrie deserialize(InputStream stream, TransitionMap transitionMap, Language language) throws IOException {
+            if (stream instanceof FileInputStream) {
+                FileInputStream file = (FileInputStream) stream;
+                TrieHeader header = TrieHeader.readIfPresent(file);
+                FileChannel channel = file.getChannel();
+                long position = channel.position();
+                return load(language, header, channel.map(FileChannel.MapMode.READ_ONLY, position, channel.size() - position));
+            }
+
+            BufferedInputStream buffered = new BufferedInputStream(stream);
+            TrieHeader header = TrieHeader.readIfPresent(buffered);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = buffered.read(buffer)) != -1) {
+                bytes.write(buffer, 0, read);
+            }
+            return load(language, header, ByteBuffer.wrap(bytes.toByteArray()));
+        }
+
+        private static MappedTrie load(Language language, TrieHeader header, ByteBuffer buffer) throws IOException {
+            if (header != null) {
+                header.check(language, TrieHeader.Format.MAPPED);
+                header.verify(buffer);
+            }
+
+            return new MappedTrie(language, buffer);
+        }
+    }
+
+}
@@ -3,16 +3,29 @@ package net.healeys.trie;
 public interface Solution {
     String getWord();
 
+    /**
+     * Boxed copy of {@link #getPath()}. Prefer {@link #getPath()} where possible, which avoids
+     * allocating an Integer for each cell.
+     */
     Integer[] getPositions();
 
+    /**
+     * The cells visited to spell out this word, in order. Callers must not modify this.
+     */
+    int[] getPath();
+
     class Default implements Solution {
 
         private final String word;
-        private final Integer[] positions;
+        private final int[] path;
 
-        public Default(String word, Integer[] positions) {
+        public Default(String word, int[] path) {
             this.word = word;
-            this.positions = positions;
+            this.path = path;
+        }
+
+        public Default(String word, Integer[] positions) {
+            this(word, unbox(positions));
         }
 
         @Override
@@ -22,7 +35,28 @@ public interface Solution {
 
         @Override
         public Integer[] getPositions() {
+            return box(path);
+        }
+
+        @Override
+        public int[] getPath() {
+            return path;
+        }
+
+        static int[] unbox(Integer[] positions) {
+            int[] path = new int[positions.length];
+            for (int i = 0; i < positions.length; i++) {
+                path[i] = positions[i];
+            }
+            return path;
+        }
+
+        static Integer[] box(int[] path) {
+            Integer[] positions = new Integer[path.length];
+            for (int i = 0; i < path.length; i++) {
+                positions[i] = path[i];
+            }
             return positions;
         }
     }
-}
\ No newline at end of file
+}
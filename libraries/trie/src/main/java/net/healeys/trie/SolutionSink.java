@@ -0,0 +1,134 @@
+package net.healeys.trie;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Receives each solution as the solver finds it, via {@link Trie#solve(TransitionMap, WordFilter, SolutionSink)}.
+ * <p>
+ * Callers which only want a summary of the board (e.g. how many words there are) can use one of
+ * the sinks below, instead of building up the full map from {@link Trie#solver(TransitionMap, WordFilter)}
+ * and then throwing it away.
+ */
+public interface SolutionSink {
+
+    /**
+     * Called once for every path which spells out a word. The same word will be passed to this
+     * more than once if there is more than one way to spell it on the board.
+     *
+     * @param path   Buffer which is reused by the solver, so it is only valid for the duration of
+     *               this call. Only the first {@param length} cells are part of this solution.
+     *               Copy it if it needs to be kept.
+     * @param length Number of cells in the path.
+     */
+    void onSolution(String word, int[] path, int length);
+
+    /**
+     * Counts the number of distinct words on the board.
+     */
+    class WordCount implements SolutionSink {
+
+        private final Set<String> words = new HashSet<>();
+
+        @Override
+        public void onSolution(String word, int[] path, int length) {
+            words.add(word);
+        }
+
+        public int getCount() {
+            return words.size();
+        }
+    }
+
+    /**
+     * Counts the number of distinct words on the board of each length (in characters, not tiles).
+     */
+    class LengthHistogram implements SolutionSink {
+
+        private final Set<String> words = new HashSet<>();
+        private int[] counts = new int[0];
+
+        @Override
+        public void onSolution(String word, int[] path, int length) {
+            if (!words.add(word)) {
+                return;
+            }
+
+            if (word.length() >= counts.length) {
+                counts = Arrays.copyOf(counts, word.length() + 1);
+            }
+            counts[word.length()]++;
+        }
+
+        /**
+         * Index i is the number of distinct words with i characters.
+         */
+        public int[] getCounts() {
+            return counts.clone();
+        }
+
+        public int getCount(int wordLength) {
+            return wordLength < counts.length ? counts[wordLength] : 0;
+        }
+    }
+
+    /**
+     * Keeps only the first path found for each word, in the order the words were found.
+     */
+    class FirstPath implements SolutionSink {
+
+        private final Map<String, Solution> solutions = new LinkedHashMap<>();
+
+        @Override
+        public void onSolution(String word, int[] path, int length) {
+            if (!solutions.containsKey(word)) {
+                solutions.put(word, new Solution.Default(word, Arrays.copyOf(path, length)));
+            }
+        }
+
+        public Map<String, Solution> getSolutions() {
+            return solutions;
+        }
+    }
+
+    /**
+     * Collects every path for every word, as returned by {@link Trie#solver(TransitionMap, WordFilter)}.
+     */
+    class Collect implements SolutionSink {
+
+        private final Map<String, List<Solution>> solutions;
+
+        /**
+         * Collects into a {@link TreeMap}, so words are sorted.
+         */
+        public Collect() {
+            this(new TreeMap<>());
+        }
+
+        public Collect(Map<String, List<Solution>> solutions) {
+            this.solutions = solutions;
+        }
+
+        @Override
+        public void onSolution(String word, int[] path, int length) {
+            List<Solution> sols = solutions.get(word);
+            if (sols == null) {
+                // Most words can only be spelled one way on any given board.
+                sols = new ArrayList<>(1);
+                solutions.put(word, sols);
+            }
+            sols.add(new Solution.Default(word, Arrays.copyOf(path, length)));
+        }
+
+        public Map<String, List<Solution>> getSolutions() {
+            return solutions;
+        }
+    }
+
+}
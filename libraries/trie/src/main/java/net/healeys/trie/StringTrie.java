@@ -3,27 +3,75 @@ package net.healeys.trie;
 import com.serwylo.lexica.lang.Language;
 
 import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 public class StringTrie extends Trie {
 
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * The first byte of a trie written by {@link #writeCompact(OutputStream)}. Tries written by
+     * {@link #write(OutputStream)} start with the size of the root node as a (positive, big endian)
+     * int, so their first byte never has the high bit set.
+     */
+    static final int COMPACT_FORMAT_MARKER = 0x81;
+
+    /**
+     * Set in the flags of a compact trie when nodes are annotated with the tiles required by
+     * every word below them, see {@link #writeCompact(OutputStream, int)}.
+     */
+    static final int COMPACT_FLAG_REQUIRED_TILES = 1;
+
+    private final TileAlphabet alphabet;
     private final Node rootNode;
 
+    /**
+     * Number of nodes which have been assigned an id for {@link #countWords(TransitionMap, int)},
+     * or -1 if they need to be assigned again because words have been added since.
+     */
+    private volatile int nodeCount = -1;
+
+    /**
+     * Number of nodes below each child of the root, indexed by the {@link TileAlphabet} id of its
+     * tile, or null if they need counting again because words have been added since. Used by
+     * {@link #solver(TransitionMap, WordFilter, ExecutorService)} to tell which starting cells
+     * are worth splitting into more than one task.
+     */
+    private volatile int[] firstTileSizes;
+
+    private final ThreadLocal<NodeMarks> nodeMarks = new ThreadLocal<NodeMarks>() {
+        @Override
+        protected NodeMarks initialValue() {
+            return new NodeMarks();
+        }
+    };
+
     public StringTrie(Language language) {
         super(language);
+        alphabet = TileAlphabet.of(language);
         rootNode = new Node(language);
     }
 
@@ -38,65 +86,407 @@ public class StringTrie extends Trie {
      */
     private static class CheapTransitionMap {
 
-        private Map<String, Set<String>> transitions = new HashMap<>();
-
-        CheapTransitionMap(TransitionMap transitionMap) {
-            for (int fromPos = 0; fromPos < transitionMap.getSize(); fromPos++) {
+        /**
+         * Size of the {@link TileAlphabet} when this was built. Tiles given an id since then can't
+         * be on the board.
+         */
+        private final int tileCount;
+
+        private final boolean[] onBoard;
+
+        /**
+         * Indexed by (from * {@link #tileCount}) + to.
+         */
+        private final boolean[] transitions;
+
+        /**
+         * Copies of each tile which are not yet used by the path from the root to the node being
+         * read, or null if tiles aren't being counted.
+         */
+        private final int[] unusedCopies;
+
+        /**
+         * @param countTiles See {@link Deserializer#Deserializer(boolean)}.
+         */
+        CheapTransitionMap(TransitionMap transitionMap, TileAlphabet alphabet, boolean countTiles) {
+            int[] tiles = new int[transitionMap.getSize()];
+            for (int i = 0; i < tiles.length; i++) {
+                tiles[i] = alphabet.intern(transitionMap.valueAt(i));
+            }
 
-                String from = transitionMap.valueAt(fromPos);
+            tileCount = alphabet.size();
+            onBoard = new boolean[tileCount];
+            transitions = new boolean[tileCount * tileCount];
+            unusedCopies = countTiles && !transitionMap.canRevisit() ? new int[tileCount] : null;
 
-                int fromX = fromPos % transitionMap.getWidth();
-                int fromY = fromPos / transitionMap.getWidth();
+            int width = transitionMap.getWidth();
+            for (int fromPos = 0; fromPos < tiles.length; fromPos++) {
+                onBoard[tiles[fromPos]] = true;
+                if (unusedCopies != null) {
+                    unusedCopies[tiles[fromPos]]++;
+                }
 
-                Set<String> transitionTo = new HashSet<>();
-                for (int j = 0; j < transitionMap.getSize(); j++) {
-                    String to = transitionMap.valueAt(j);
-                    if (transitionMap.valueAt(j).equals(to)) {
-                        int toX = j % transitionMap.getWidth();
-                        int toY = j / transitionMap.getWidth();
-                        if (transitionMap.canTransition(fromX, fromY, toX, toY)) {
-                            transitionTo.add(transitionMap.valueAt(j));
-                        }
+                int fromX = fromPos % width;
+                int fromY = fromPos / width;
+                for (int toPos = 0; toPos < tiles.length; toPos++) {
+                    if (transitionMap.canTransition(fromX, fromY, toPos % width, toPos / width)) {
+                        transitions[tiles[fromPos] * tileCount + tiles[toPos]] = true;
                     }
                 }
+            }
+        }
 
-                if (!transitions.containsKey(from)) {
-                    transitions.put(from, new HashSet<>());
-                }
+        boolean contains(int from) {
+            return from < tileCount && onBoard[from];
+        }
 
-                transitions.get(from).addAll(transitionTo);
+        boolean canTransition(int from, int to) {
+            return from < tileCount && to < tileCount && transitions[from * tileCount + to];
+        }
 
-            }
+        /**
+         * Whether the path to the node being read has left a copy of {@param tile} to use. Only
+         * valid for tiles which passed {@link #contains(int)} or {@link #canTransition(int, int)}.
+         */
+        boolean hasUnusedCopy(int tile) {
+            return unusedCopies == null || unusedCopies[tile] > 0;
         }
 
-        boolean contains(String from) {
-            return transitions.containsKey(from);
+        void useCopy(int tile) {
+            if (unusedCopies != null) {
+                unusedCopies[tile]--;
+            }
         }
 
-        boolean canTransition(String from, String to) {
-            Set<String> transitionTo = transitions.get(from);
-            return transitionTo != null && transitionTo.contains(to);
+        void returnCopy(int tile) {
+            if (unusedCopies != null) {
+                unusedCopies[tile]++;
+            }
         }
     }
 
-    private StringTrie(Language language, InputStream in, TransitionMap transitionMap) throws IOException {
+    /**
+     * @param transitionMap Only the parts of the trie which could possibly be reached on this board
+     *                      are kept. If null, the entire trie is kept, which is much slower to load
+     *                      but can then be shared between any number of boards.
+     */
+    private StringTrie(Language language, InputStream in, TransitionMap transitionMap, boolean countTiles) throws IOException {
         super(language);
+        alphabet = TileAlphabet.of(language);
+
+        CheapTransitionMap cheapTransitionMap = transitionMap == null ? null : new CheapTransitionMap(transitionMap, alphabet, countTiles);
+        rootNode = new Node(NodeReader.open(in), -1, language, alphabet, cheapTransitionMap, TileAlphabet.NO_TILE, 0);
+    }
+
+    /**
+     * Reads the nodes written by either {@link #write(OutputStream)} or
+     * {@link #writeCompact(OutputStream)}, so that {@link Node} doesn't need to know which.
+     */
+    static class NodeReader {
+
+        final DataInputStream input;
+
+        NodeReader(DataInputStream input) {
+            this.input = input;
+        }
+
+        static NodeReader open(InputStream in) throws IOException {
+            // Streams which can already mark are in memory (e.g. a ByteBufferInputStream), and
+            // buffering them again would turn skipping into copying.
+            InputStream markable = in.markSupported() ? in : new BufferedInputStream(in);
+            DataInputStream input = new DataInputStream(markable);
+
+            markable.mark(1);
+            int marker = markable.read();
+            if (marker == COMPACT_FORMAT_MARKER) {
+                return new CompactNodeReader(input);
+            }
+
+            markable.reset();
+            return new NodeReader(input);
+        }
+
+        /**
+         * Called before reading each node. Nodes in the original format start with their own size,
+         * which is only needed when skipping them (see {@link #readSize()}).
+         */
+        void startNode() throws IOException {
+            input.readInt();
+        }
+
+        /**
+         * Only for nodes in the original format, which start with their own size.
+         *
+         * @return Number of bytes in the rest of the node, i.e. everything after the size itself.
+         */
+        int readSize() throws IOException {
+            return input.readInt();
+        }
+
+        /**
+         * Called after reading the tile of each child.
+         *
+         * @return The number of bytes taken up by each child (and everything below it), or null
+         * if the format doesn't list them up front, in which case each child starts with its own
+         * size instead.
+         */
+        int[] readChildSizes(int childCount) throws IOException {
+            return null;
+        }
+
+        /**
+         * Called after {@link #startNode()}, to read the tiles required by every word below the
+         * node (not including its own tile), if it is annotated with them.
+         *
+         * @param size  Number of bytes taken up by the node, or -1 if not known (in which case it
+         *              isn't annotated).
+         * @param board Null when the whole trie is being loaded, in which case any annotation is
+         *              skipped.
+         * @return -1 if all of the required tiles are on {@param board} (or the node isn't
+         * annotated), otherwise the number of bytes taken up by the annotation.
+         */
+        int readRequiredTilesOnBoard(int size, CheapTransitionMap board) throws IOException {
+            return -1;
+        }
+
+        /**
+         * Like {@link #readRequiredTilesOnBoard(int, CheapTransitionMap)}, but returns the tiles
+         * themselves (as ids in the symbol table), or null if the node isn't annotated.
+         */
+        BitSet readRequiredTiles(int size) throws IOException {
+            return null;
+        }
+
+        /**
+         * Reads {@param node} (as previously read from this reader) in the same format.
+         */
+        NodeReader readerFor(byte[] node) {
+            return new NodeReader(new DataInputStream(new ByteArrayInputStream(node)));
+        }
+
+        /**
+         * @return Number of children shifted left by one, with the lowest bit set if the node is
+         * a word.
+         */
+        int readWordAndChildCount() throws IOException {
+            boolean isWord = input.readBoolean();
+            return input.readShort() << 1 | (isWord ? 1 : 0);
+        }
+
+        String readTile() throws IOException {
+            byte[] bytes = new byte[input.readByte()];
+            input.readFully(bytes);
+            return new String(bytes, UTF_8);
+        }
+
+        int readTileId(TileAlphabet alphabet) throws IOException {
+            return alphabet.intern(readTile());
+        }
+
+        void skip(int bytes) throws IOException {
+            while (bytes > 0) {
+                int skipped = input.skipBytes(bytes);
+                if (skipped <= 0) {
+                    input.readByte(); // Either reads one byte or throws EOFException.
+                    skipped = 1;
+                }
+                bytes -= skipped;
+            }
+        }
+    }
+
+    static class CompactNodeReader extends NodeReader {
+
+        private final int flags;
+
+        /**
+         * Nodes taking up at least this many bytes are annotated with the tiles they require,
+         * if {@link #COMPACT_FLAG_REQUIRED_TILES} is set.
+         */
+        private final int minAnnotatedSize;
+
+        private final String[] tiles;
+
+        /**
+         * The {@link TileAlphabet} id of each tile in {@link #tiles}, looked up the first time
+         * they are needed so that the symbol table is the only place strings are hashed.
+         */
+        private int[] tileIds;
+
+        /**
+         * Whether each tile in {@link #tiles} is on the board being loaded for, looked up the
+         * first time an annotation is read.
+         */
+        private boolean[] tilesOnBoard;
+
+        CompactNodeReader(DataInputStream input) throws IOException {
+            super(input);
+
+            flags = Varint.read(input);
+            if ((flags & ~COMPACT_FLAG_REQUIRED_TILES) != 0) {
+                throw new IOException("Unsupported compact trie flags: " + Integer.toHexString(flags));
+            }
+
+            minAnnotatedSize = (flags & COMPACT_FLAG_REQUIRED_TILES) != 0 ? Varint.read(input) : 0;
+
+            tiles = new String[Varint.read(input)];
+            for (int i = 0; i < tiles.length; i++) {
+                byte[] bytes = new byte[Varint.read(input)];
+                input.readFully(bytes);
+                tiles[i] = new String(bytes, UTF_8);
+            }
+        }
+
+        private CompactNodeReader(DataInputStream input, CompactNodeReader format) {
+            super(input);
+            flags = format.flags;
+            minAnnotatedSize = format.minAnnotatedSize;
+            tiles = format.tiles;
+        }
+
+        /**
+         * The symbol table, indexed by tile id.
+         */
+        String[] getTiles() {
+            return tiles;
+        }
+
+        /**
+         * Zero if nodes aren't annotated with the tiles they require.
+         */
+        int getMinAnnotatedSize() {
+            return minAnnotatedSize;
+        }
+
+        @Override
+        NodeReader readerFor(byte[] node) {
+            return new CompactNodeReader(new DataInputStream(new ByteArrayInputStream(node)), this);
+        }
+
+        private boolean isAnnotated(int size) {
+            return minAnnotatedSize > 0 && size >= minAnnotatedSize;
+        }
+
+        @Override
+        int readRequiredTilesOnBoard(int size, CheapTransitionMap board) throws IOException {
+            if (!isAnnotated(size)) {
+                return -1;
+            }
+
+            int length = Varint.read(input);
+            if (board == null) {
+                skip(length);
+                return -1;
+            }
+
+            return allTilesOnBoard(length, board) ? -1 : Varint.size(length) + length;
+        }
+
+        /**
+         * Reads a bitset of {@param length} bytes, where bit (i % 8) of byte (i / 8) is set if
+         * tile i of the symbol table is in the set.
+         */
+        private boolean allTilesOnBoard(int length, CheapTransitionMap board) throws IOException {
+            if (tilesOnBoard == null) {
+                tilesOnBoard = new boolean[tiles.length];
+                for (int i = 0; i < tiles.length; i++) {
+                    tilesOnBoard[i] = board.contains(tileIds[i]);
+                }
+            }
+
+            boolean allOnBoard = true;
+            for (int b = 0; b < length; b++) {
+                int bits = input.readUnsignedByte();
+                while (bits != 0 && allOnBoard) {
+                    int tile = b * 8 + Integer.numberOfTrailingZeros(bits);
+                    allOnBoard = tile < tilesOnBoard.length && tilesOnBoard[tile];
+                    bits &= bits - 1;
+                }
+            }
+            return allOnBoard;
+        }
+
+        @Override
+        BitSet readRequiredTiles(int size) throws IOException {
+            if (!isAnnotated(size)) {
+                return null;
+            }
+
+            byte[] bytes = new byte[Varint.read(input)];
+            input.readFully(bytes);
+            return fromBytes(bytes);
+        }
+
+        @Override
+        void startNode() {
+            // Sizes are listed by the parent instead.
+        }
+
+        @Override
+        int readSize() {
+            throw new UnsupportedOperationException("Compact nodes don't start with their own size");
+        }
+
+        @Override
+        int[] readChildSizes(int childCount) throws IOException {
+            int[] sizes = new int[childCount];
+            for (int i = 0; i < childCount; i++) {
+                sizes[i] = Varint.read(input);
+            }
+            return sizes;
+        }
+
+        @Override
+        int readWordAndChildCount() throws IOException {
+            return Varint.read(input);
+        }
 
-        Set<String> availableStrings = new HashSet<>(transitionMap.getSize());
-        for (int i = 0; i < transitionMap.getSize(); i++) {
-            availableStrings.add(transitionMap.valueAt(i));
+        @Override
+        String readTile() throws IOException {
+            return tiles[Varint.read(input)];
+        }
+
+        @Override
+        int readTileId(TileAlphabet alphabet) throws IOException {
+            if (tileIds == null) {
+                tileIds = new int[tiles.length];
+                for (int i = 0; i < tiles.length; i++) {
+                    tileIds[i] = alphabet.intern(tiles[i]);
+                }
+            }
+            return tileIds[Varint.read(input)];
         }
-        rootNode = new Node(new DataInputStream(new BufferedInputStream(in)), language, new CheapTransitionMap(transitionMap), availableStrings, false, null, 0);
     }
 
     @Override
     public void addWord(String w) {
-        rootNode.addSuffix(w, 0);
+        rootNode.addSuffix(alphabet, w, 0);
+        nodeCount = -1;
+        firstTileSizes = null;
     }
 
     @Override
     public boolean isWord(String word) {
-        return rootNode.isAnyWord(word, 0);
+        return rootNode.isAnyWord(alphabet, word);
+    }
+
+    Node rootNode() {
+        return rootNode;
+    }
+
+    /**
+     * Number of words in the trie, which walks the whole trie to count them.
+     */
+    public int getWordCount() {
+        return countAllWords(rootNode);
+    }
+
+    private static int countAllWords(Node node) {
+        int count = node.isWord ? 1 : 0;
+        for (Node child : node.childNodes) {
+            count += countAllWords(child);
+        }
+        return count;
     }
 
     @Override
@@ -104,14 +494,205 @@ public class StringTrie extends Trie {
         rootNode.writeNode(out);
     }
 
+    /**
+     * A smaller alternative to {@link #write(OutputStream)}, which is also read by
+     * {@link Deserializer}:
+     * <ul>
+     *     <li>Each tile is written once in a table at the start, and then referred to by its index.</li>
+     *     <li>Sizes and counts are written as varints (see {@link Varint}) rather than fixed width ints.</li>
+     *     <li>Whether a node is a word is packed into the lowest bit of its child count.</li>
+     *     <li>Rather than each node starting with its own size, the sizes of all of its children
+     *     are listed after their tiles. When loading for a board, a run of children which can't be
+     *     reached is then skipped in one go, without reading anything from any of them.</li>
+     * </ul>
+     * After the marker is a varint of flags, for the optional extras described in
+     * {@link #writeCompact(OutputStream, int)}.
+     * <p>
+     * The size of every node is calculated first, so that nodes can be streamed straight to
+     * {@param out}, rather than each subtree being buffered before writing its size.
+     */
+    public void writeCompact(OutputStream out) throws IOException {
+        writeCompact(out, 0);
+    }
+
+    /**
+     * Like {@link #writeCompact(OutputStream)}, but each node taking up at least
+     * {@param minAnnotatedSize} bytes is annotated with the tiles which every word below it
+     * requires. For example, if the only words below "zebr" are "zebra" and "zebras", then both
+     * require an "a". When loading for a board, a node which requires a tile that isn't on the
+     * board can't lead to any longer words, so everything below it is skipped without reading it.
+     * <p>
+     * Small nodes aren't annotated, because skipping them is already cheap and the annotation
+     * would take up more space than it saves time. The annotation goes at the start of the node,
+     * as a varint number of bytes followed by a bitset of tile ids (see {@link #toBytes(BitSet)}),
+     * and is included in the size of the node listed by its parent. Whether a node is annotated
+     * is decided by that size, so the root never is. {@link #COMPACT_FLAG_REQUIRED_TILES} is set in
+     * the flags, which are followed by {@param minAnnotatedSize} as a varint.
+     *
+     * @param minAnnotatedSize Zero to not annotate any nodes.
+     */
+    public void writeCompact(OutputStream out, int minAnnotatedSize) throws IOException {
+        boolean[] used = new boolean[alphabet.size()];
+        collectTiles(rootNode, used);
+
+        List<String> tiles = new ArrayList<>();
+        for (int id = 0; id < used.length; id++) {
+            if (used[id]) {
+                tiles.add(alphabet.tileOf(id));
+            }
+        }
+        Collections.sort(tiles);
+
+        // Indexed by TileAlphabet id, which differ from one run to the next, so the ids in the
+        // file are assigned based on the sorted tiles instead.
+        int[] compactIds = new int[used.length];
+        for (int i = 0; i < tiles.size(); i++) {
+            compactIds[alphabet.idOf(tiles.get(i))] = i;
+        }
+
+        Map<Node, Integer> nodeSizes = new IdentityHashMap<>();
+        Map<Node, byte[]> requiredTiles = new IdentityHashMap<>();
+        calcCompactSize(rootNode, compactIds, minAnnotatedSize, nodeSizes, requiredTiles, minAnnotatedSize > 0 ? new BitSet() : null, false);
+
+        // Varints are written a byte at a time, which is painfully slow straight to a file.
+        OutputStream buffered = new BufferedOutputStream(out);
+        buffered.write(COMPACT_FORMAT_MARKER);
+        if (minAnnotatedSize > 0) {
+            Varint.write(buffered, COMPACT_FLAG_REQUIRED_TILES);
+            Varint.write(buffered, minAnnotatedSize);
+        } else {
+            Varint.write(buffered, 0);
+        }
+        Varint.write(buffered, tiles.size());
+        for (String tile : tiles) {
+            byte[] bytes = tile.getBytes(UTF_8);
+            Varint.write(buffered, bytes.length);
+            buffered.write(bytes);
+        }
+
+        writeCompactNode(rootNode, compactIds, nodeSizes, requiredTiles, buffered);
+        buffered.flush();
+    }
+
+    /**
+     * Bit (i % 8) of byte (i / 8) is set if {@param tiles} contains i, with no trailing zero bytes.
+     * Written by hand because {@link BitSet#toByteArray()} isn't available on older versions of
+     * Android.
+     */
+    static byte[] toBytes(BitSet tiles) {
+        byte[] bytes = new byte[(tiles.length() + 7) / 8];
+        for (int i = tiles.nextSetBit(0); i >= 0; i = tiles.nextSetBit(i + 1)) {
+            bytes[i / 8] |= 1 << (i % 8);
+        }
+        return bytes;
+    }
+
+    static BitSet fromBytes(byte[] bytes) {
+        BitSet tiles = new BitSet(bytes.length * 8);
+        for (int i = 0; i < bytes.length * 8; i++) {
+            if ((bytes[i / 8] & (1 << (i % 8))) != 0) {
+                tiles.set(i);
+            }
+        }
+        return tiles;
+    }
+
+    private static void collectTiles(Node node, boolean[] used) {
+        for (int i = 0; i < node.childTiles.length; i++) {
+            used[node.childTiles[i]] = true;
+            collectTiles(node.childNodes[i], used);
+        }
+    }
+
+    /**
+     * @param requiredTiles Filled with the annotation for each node which needs one.
+     * @param required      Filled with the compact id of every tile required by all of the words
+     *                      below {@param node}, or null if the trie isn't being annotated.
+     * @param canAnnotate   False for the root, which has no parent to list its size.
+     * @return Number of bytes taken up by {@param node} and everything below it.
+     */
+    private static int calcCompactSize(Node node, int[] compactIds, int minAnnotatedSize, Map<Node, Integer> nodeSizes, Map<Node, byte[]> requiredTiles, BitSet required, boolean canAnnotate) {
+        BitSet requiredByAll = null;
+        int size = Varint.size(node.childTiles.length << 1);
+        for (int i = 0; i < node.childTiles.length; i++) {
+            Node child = node.childNodes[i];
+            BitSet childRequired = required == null ? null : new BitSet();
+            int childSize = calcCompactSize(child, compactIds, minAnnotatedSize, nodeSizes, requiredTiles, childRequired, true);
+            size += Varint.size(compactIds[node.childTiles[i]]) + Varint.size(childSize) + childSize;
+
+            if (required == null) {
+                continue;
+            }
+
+            // Words through this child need its tile, and unless the child is itself a word, so
+            // do all of the words below it.
+            BitSet requiredThroughChild = child.isWord ? new BitSet() : (BitSet) childRequired.clone();
+            requiredThroughChild.set(compactIds[node.childTiles[i]]);
+            if (requiredByAll == null) {
+                requiredByAll = requiredThroughChild;
+            } else {
+                requiredByAll.and(requiredThroughChild);
+            }
+        }
+
+        if (required != null) {
+            if (requiredByAll != null) {
+                required.or(requiredByAll);
+            }
+
+            // Annotated based on the size including the annotation, as that is what the reader sees.
+            byte[] annotation = toBytes(required);
+            int annotatedSize = size + Varint.size(annotation.length) + annotation.length;
+            if (canAnnotate && annotatedSize >= minAnnotatedSize) {
+                requiredTiles.put(node, annotation);
+                size = annotatedSize;
+            }
+        }
+
+        nodeSizes.put(node, size);
+        return size;
+    }
+
+    private static void writeCompactNode(Node node, int[] compactIds, Map<Node, Integer> nodeSizes, Map<Node, byte[]> requiredTiles, OutputStream out) throws IOException {
+        // Sorted so that building the same dictionary always results in the same file.
+        Integer[] order = new Integer[node.childTiles.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> compactIds[node.childTiles[a]] - compactIds[node.childTiles[b]]);
+
+        byte[] annotation = requiredTiles.get(node);
+        if (annotation != null) {
+            Varint.write(out, annotation.length);
+            out.write(annotation);
+        }
+
+        Varint.write(out, node.childTiles.length << 1 | (node.isWord ? 1 : 0));
+        for (int i : order) {
+            Varint.write(out, compactIds[node.childTiles[i]]);
+        }
+
+        for (int i : order) {
+            Varint.write(out, nodeSizes.get(node.childNodes[i]));
+        }
+
+        for (int i : order) {
+            writeCompactNode(node.childNodes[i], compactIds, nodeSizes, requiredTiles, out);
+        }
+    }
+
     public static class StringSolution implements net.healeys.trie.Solution {
 
         private final String word;
-        private final Integer[] positions;
+        private final int[] path;
 
-        public StringSolution(String word, Integer[] positions) {
+        public StringSolution(String word, int[] path) {
             this.word = word;
-            this.positions = positions;
+            this.path = path;
+        }
+
+        public StringSolution(String word, Integer[] positions) {
+            this(word, Solution.Default.unbox(positions));
         }
 
         @Override
@@ -119,166 +700,507 @@ public class StringTrie extends Trie {
             return word;
         }
 
+        @Override
         public Integer[] getPositions() {
-            return positions;
+            return Solution.Default.box(path);
+        }
+
+        @Override
+        public int[] getPath() {
+            return path;
         }
     }
 
-    private void recursiveSolver(TransitionMap transitions, WordFilter wordFilter, StringTrie.Node node, int pos, Set<Integer> usedPositions, StringBuilder prefix, Map<String, List<Solution>> solutions, List<Integer> solution) {
+    /**
+     * Depth first search over the board, walking the trie in step with each cell visited.
+     * <p>
+     * Holds all of the state which is shared for the duration of a single solve, so that the
+     * recursive {@link #visit(Node, int, long, int)} only needs to pass around what changes with
+     * each step. Cells which have already been used in the current path are tracked as bits in a
+     * long (see {@link AdjacencyTable#bitFor(int)}) rather than a set of boxed positions.
+     * <p>
+     * Each step compares the {@link TileAlphabet} id of the cell against the children of the
+     * current node. The word itself is only built from the path when a word is found.
+     */
+    private static class Solver {
+
+        private final AdjacencyTable table;
+        private final WordFilter wordFilter;
+        private final SolutionSink sink;
+        private final StringBuilder word = new StringBuilder();
+        private int[] path;
+
+        Solver(AdjacencyTable table, WordFilter wordFilter, SolutionSink sink) {
+            this.table = table;
+            this.wordFilter = wordFilter;
+            this.sink = sink;
+            this.path = new int[Math.min(table.size(), AdjacencyTable.MAX_CELLS) + 1];
+        }
+
+        void solveFrom(Node rootNode, int position) {
+            Node startNode = start(rootNode, position);
+            if (startNode != null) {
+                visit(startNode, position, 0, 1);
+            }
+        }
 
-        if (node.word()) {
-            String w = new String(prefix);
-            if (wordFilter == null || wordFilter.isWord(w)) {
-                Integer[] solutionArray = new Integer[solution.size()];
-                solution.toArray(solutionArray);
-                List<Solution> sols = solutions.get(w);
-                if (sols == null) {
-                    sols = new LinkedList<>();
-                    solutions.put(w, sols);
-                }
-                sols.add(new StringSolution(w, solutionArray));
+        /**
+         * Only records the single tile word at {@param position} (if it is a word), without
+         * exploring any further. Used alongside {@link #solveFrom(Node, int, int)} to split the
+         * search for a single starting cell into smaller pieces.
+         */
+        void solveWordAt(Node rootNode, int position) {
+            Node startNode = start(rootNode, position);
+            if (startNode != null) {
+                recordIfWord(startNode, 1);
             }
         }
 
-        if (node.isTail()) {
-            return;
+        /**
+         * Explores all paths which start at {@param position} and then move to the neighbour at
+         * {@param neighbourIndex} (as per {@link AdjacencyTable#neighboursOf(int)}).
+         */
+        void solveFrom(Node rootNode, int position, int neighbourIndex) {
+            Node startNode = start(rootNode, position);
+            if (startNode != null && !startNode.isTail()) {
+                int toPosition = table.neighboursOf(position)[neighbourIndex];
+                visitNeighbour(startNode, table.bitFor(position), 1, toPosition);
+            }
         }
 
-        if (!transitions.canRevisit()) {
-            usedPositions.add(pos);
+        private Node start(Node rootNode, int position) {
+            Node startNode = rootNode.childAt(table.tileAt(position));
+            if (startNode != null) {
+                path[0] = position;
+            }
+            return startNode;
         }
 
-        int fromX = pos % transitions.getWidth();
-        int fromY = pos / transitions.getWidth();
+        private void visit(Node node, int pos, long usedPositions, int depth) {
 
-        for (int toX = 0; toX < transitions.getWidth(); toX++) {
-            for (int toY = 0; toY < transitions.getWidth(); toY++) {
-                if (!transitions.canTransition(fromX, fromY, toX, toY)) {
-                    continue;
-                }
+            recordIfWord(node, depth);
 
-                int toPosition = toX + transitions.getWidth() * toY;
-                if (usedPositions.contains(toPosition)) {
-                    continue;
-                }
+            if (node.isTail()) {
+                return;
+            }
 
-                String valueAt = transitions.valueAt(toPosition);
-                StringTrie.Node nextNode = node.maybeChildAt(valueAt);
-                if (nextNode == null) {
-                    continue;
-                }
+            usedPositions |= table.bitFor(pos);
 
-                prefix.append(valueAt);
+            for (int toPosition : table.neighboursOf(pos)) {
+                visitNeighbour(node, usedPositions, depth, toPosition);
+            }
+        }
 
-                solution.add(toPosition);
-                recursiveSolver(transitions, wordFilter, nextNode, toPosition, usedPositions, prefix, solutions, solution);
-                solution.remove(solution.size() - 1);
+        private void visitNeighbour(Node node, long usedPositions, int depth, int toPosition) {
+            if ((usedPositions & table.bitFor(toPosition)) != 0) {
+                return;
+            }
 
-                prefix.delete(prefix.length() - valueAt.length(), prefix.length());
+            Node nextNode = node.childAt(table.tileAt(toPosition));
+            if (nextNode == null) {
+                return;
             }
+
+            if (depth == path.length) {
+                path = Arrays.copyOf(path, path.length * 2);
+            }
+
+            path[depth] = toPosition;
+            visit(nextNode, toPosition, usedPositions, depth + 1);
         }
 
-        usedPositions.remove(pos);
+        private void recordIfWord(Node node, int depth) {
+            if (!node.word()) {
+                return;
+            }
+
+            word.setLength(0);
+            for (int i = 0; i < depth; i++) {
+                word.append(table.valueAt(path[i]));
+            }
+
+            String w = word.toString();
+            if (wordFilter == null || wordFilter.isWord(w)) {
+                sink.onSolution(w, path, depth);
+            }
+        }
     }
 
     @Override
-    public Map<String, List<Solution>> solver(TransitionMap transitions, WordFilter filter) {
+    public void solve(TransitionMap transitions, WordFilter filter, SolutionSink sink) {
+        Solver solver = new Solver(new AdjacencyTable(transitions, alphabet), filter, sink);
+        for (int i = 0; i < transitions.getSize(); i++) {
+            solver.solveFrom(rootNode, i);
+        }
+    }
 
-        Map<String, List<Solution>> solutions = new TreeMap<>();
-        StringBuilder prefix = new StringBuilder(transitions.getSize() + 1);
+    /**
+     * Each word in this trie ends at exactly one node, so rather than collecting the words found
+     * into a set, each word node is marked as counted the first time it is reached. Marks are
+     * stored against an "epoch" which changes for every board, so they never need to be cleared
+     * and no strings are built while solving.
+     * <p>
+     * The marks are kept per thread, so this is safe to call from multiple threads at once, as
+     * long as no words are being added at the same time.
+     */
+    @Override
+    public int countWords(TransitionMap transitions, int minWordLength) {
+        int nodeCount = assignNodeIds();
+        NodeMarks marks = nodeMarks.get();
+        int epoch = marks.nextEpoch(nodeCount);
 
-        List<Integer> positions = new ArrayList<>(transitions.getSize());
+        WordCounter counter = new WordCounter(new AdjacencyTable(transitions, alphabet), minWordLength, marks.marks, epoch);
         for (int i = 0; i < transitions.getSize(); i++) {
-            String value = transitions.valueAt(i);
+            counter.countFrom(rootNode, i);
+        }
+        return counter.count;
+    }
 
-            StringTrie.Node nextNode = rootNode.maybeChildAt(value);
-            if (nextNode == null) {
+    private int assignNodeIds() {
+        int count = nodeCount;
+        if (count >= 0) {
+            return count;
+        }
+
+        synchronized (this) {
+            if (nodeCount >= 0) {
+                return nodeCount;
+            }
+
+            count = 0;
+            List<Node> toVisit = new ArrayList<>();
+            toVisit.add(rootNode);
+            while (!toVisit.isEmpty()) {
+                Node node = toVisit.remove(toVisit.size() - 1);
+                node.id = count++;
+                toVisit.addAll(Arrays.asList(node.childNodes));
+            }
+
+            nodeCount = count;
+            return count;
+        }
+    }
+
+    private int[] firstTileSizes() {
+        int[] sizes = firstTileSizes;
+        if (sizes != null) {
+            return sizes;
+        }
+
+        // Counting twice at once does no harm, so this isn't synchronized.
+        sizes = new int[alphabet.size()];
+        for (int i = 0; i < rootNode.childTiles.length; i++) {
+            int count = 0;
+            List<Node> toVisit = new ArrayList<>();
+            toVisit.add(rootNode.childNodes[i]);
+            while (!toVisit.isEmpty()) {
+                Node node = toVisit.remove(toVisit.size() - 1);
+                count++;
+                toVisit.addAll(Arrays.asList(node.childNodes));
+            }
+            sizes[rootNode.childTiles[i]] = count;
+        }
+
+        firstTileSizes = sizes;
+        return sizes;
+    }
+
+    /**
+     * Records each solution in {@param found}, in the order they are found.
+     */
+    private static SolutionSink collectInto(final List<Solution> found) {
+        return (word, path, length) -> found.add(new Solution.Default(word, Arrays.copyOf(path, length)));
+    }
+
+    private static class NodeMarks {
+
+        private int[] marks = new int[0];
+        private int epoch = 0;
+
+        int nextEpoch(int nodeCount) {
+            if (marks.length < nodeCount) {
+                marks = new int[nodeCount];
+                epoch = 0;
+            } else if (epoch == Integer.MAX_VALUE) {
+                Arrays.fill(marks, 0);
+                epoch = 0;
+            }
+
+            return ++epoch;
+        }
+    }
+
+    /**
+     * The same search as {@link Solver}, except that it only counts distinct words, and tracks
+     * the length of the current word instead of the word itself.
+     */
+    private static class WordCounter {
+
+        private final AdjacencyTable table;
+        private final int minWordLength;
+        private final int[] marks;
+        private final int epoch;
+        int count = 0;
+
+        WordCounter(AdjacencyTable table, int minWordLength, int[] marks, int epoch) {
+            this.table = table;
+            this.minWordLength = minWordLength;
+            this.marks = marks;
+            this.epoch = epoch;
+        }
+
+        void countFrom(Node rootNode, int position) {
+            Node startNode = rootNode.childAt(table.tileAt(position));
+            if (startNode != null) {
+                visit(startNode, position, 0, table.valueAt(position).length());
+            }
+        }
+
+        private void visit(Node node, int pos, long usedPositions, int wordLength) {
+            if (node.isWord && wordLength >= minWordLength && marks[node.id] != epoch) {
+                marks[node.id] = epoch;
+                count++;
+            }
+
+            if (node.isTail()) {
+                return;
+            }
+
+            usedPositions |= table.bitFor(pos);
+
+            for (int toPosition : table.neighboursOf(pos)) {
+                if ((usedPositions & table.bitFor(toPosition)) != 0) {
+                    continue;
+                }
+
+                Node nextNode = node.childAt(table.tileAt(toPosition));
+                if (nextNode != null) {
+                    visit(nextNode, toPosition, usedPositions, wordLength + table.valueAt(toPosition).length());
+                }
+            }
+        }
+    }
+
+    /**
+     * A starting cell is split into one task per neighbour when the trie below its tile has more
+     * than this many times the nodes of an average first tile. Every other starting cell is a
+     * single task, because each task has the overhead of its own {@link Solver} and list of
+     * solutions, which outweighs any gain from splitting up the smaller searches.
+     */
+    private static final int SPLIT_FIRST_TILES_LARGER_THAN_AVERAGE = 2;
+
+    /**
+     * Splits the search into one task per starting cell, except for cells whose first tile leads
+     * to a large part of the trie (see {@link #SPLIT_FIRST_TILES_LARGER_THAN_AVERAGE}), which
+     * are split into one task per first neighbour. Each task collects its own solutions, which
+     * are then merged in the same order as the sequential {@link #solver(TransitionMap, WordFilter)}
+     * would have found them, so both return identical results (including the order of each
+     * word's solutions).
+     * <p>
+     * Tasks only record their solutions in the order they find them, rather than each building a
+     * map of their own, so that the words are only looked up once: when merging them into the
+     * single sorted map which is returned.
+     */
+    @Override
+    public Map<String, List<Solution>> solver(TransitionMap transitions, WordFilter filter, ExecutorService executor) {
+
+        final AdjacencyTable table = new AdjacencyTable(transitions, alphabet);
+
+        int[] sizes = firstTileSizes();
+        long totalSize = 0;
+        for (int size : sizes) {
+            totalSize += size;
+        }
+        long splitAbove = SPLIT_FIRST_TILES_LARGER_THAN_AVERAGE * totalSize / Math.max(1, rootNode.childNodes.length);
+
+        List<Callable<List<Solution>>> tasks = new ArrayList<>();
+        for (int i = 0; i < transitions.getSize(); i++) {
+            int tile = table.tileAt(i);
+            if (rootNode.childAt(tile) == null) {
                 continue;
             }
 
-            prefix.append(value);
-            positions.add(i);
+            final int position = i;
+            int neighbourCount = table.neighboursOf(i).length;
+            if (sizes[tile] <= splitAbove || neighbourCount == 0) {
+                tasks.add(() -> {
+                    List<Solution> found = new ArrayList<>();
+                    new Solver(table, filter, collectInto(found)).solveFrom(rootNode, position);
+                    return found;
+                });
+                continue;
+            }
 
-            recursiveSolver(transitions, filter, nextNode, i, new HashSet<>(), prefix, solutions, positions);
+            for (int j = 0; j < neighbourCount; j++) {
+                final int neighbourIndex = j;
+                tasks.add(() -> {
+                    List<Solution> found = new ArrayList<>();
+                    Solver solver = new Solver(table, filter, collectInto(found));
+                    if (neighbourIndex == 0) {
+                        // The sequential solver finds the single tile word before anything else.
+                        solver.solveWordAt(rootNode, position);
+                    }
+                    solver.solveFrom(rootNode, position, neighbourIndex);
+                    return found;
+                });
+            }
+        }
 
-            positions.remove(positions.size() - 1);
-            prefix.delete(prefix.length() - value.length(), prefix.length());
+        Map<String, List<Solution>> solutions = new TreeMap<>();
+        try {
+            for (Future<List<Solution>> result : executor.invokeAll(tasks)) {
+                for (Solution solution : result.get()) {
+                    List<Solution> sols = solutions.get(solution.getWord());
+                    if (sols == null) {
+                        // Most words can only be spelled one way on any given board.
+                        sols = new ArrayList<>(1);
+                        solutions.put(solution.getWord(), sols);
+                    }
+                    sols.add(solution);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while solving board", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error while solving board", e.getCause());
         }
 
         return solutions;
     }
 
-    private static class Node extends TrieNode {
+    static class Node extends TrieNode {
 
-        private final Map<String, Node> children = new HashMap<>();
+        private static final int[] NO_TILES = new int[0];
+        private static final Node[] NO_NODES = new Node[0];
+
+        /**
+         * {@link TileAlphabet} ids of each child, in ascending order. Most nodes only have a
+         * handful of children, so a scan through a small int[] is quicker than hashing a string.
+         */
+        private int[] childTiles = NO_TILES;
+
+        /**
+         * The child for the tile at the same index of {@link #childTiles}.
+         */
+        private Node[] childNodes = NO_NODES;
 
         private boolean isWord;
 
+        /**
+         * See {@link StringTrie#assignNodeIds()}.
+         */
+        private int id;
+
         private Node(Language language) {
             super(language);
         }
 
-        private Node(DataInputStream input, Language language, CheapTransitionMap transitionMap, Set<String> availableStrings, boolean shouldSkip, String lastChar, int depth) throws IOException {
+        /**
+         * @param size Number of bytes taken up by the node, or -1 if not known.
+         */
+        private Node(NodeReader input, int size, Language language, TileAlphabet alphabet, CheapTransitionMap transitionMap, int lastTile, int depth) throws IOException {
             super(language);
 
-            int nodeSizeInBytes = input.readInt();
+            input.startNode();
+            int annotationSize = input.readRequiredTilesOnBoard(size, transitionMap);
 
-            if (shouldSkip) {
-                input.skipBytes(nodeSizeInBytes);
+            int wordAndChildCount = input.readWordAndChildCount();
+            isWord = (wordAndChildCount & 1) != 0;
+
+            if (annotationSize >= 0) {
+                // Every word below this node needs a tile which isn't on the board, so all that
+                // matters is whether this node is itself a word.
+                input.skip(size - annotationSize - Varint.size(wordAndChildCount));
                 return;
             }
 
-            isWord = input.readBoolean();
-
-            int numChildren = input.readShort();
+            int numChildren = wordAndChildCount >>> 1;
 
             if (numChildren > 0) {
-                String[] childStrings = new String[numChildren];
+                int[] tiles = new int[numChildren];
+                boolean[] keep = new boolean[numChildren];
+                int keptCount = 0;
                 for (int i = 0; i < numChildren; i++) {
-                    int length = input.readByte();
+                    int tile = input.readTileId(alphabet);
+                    tiles[i] = tile;
+                    keep[i] = transitionMap == null
+                            || (depth == 0 ? transitionMap.contains(tile) : transitionMap.canTransition(lastTile, tile)) && transitionMap.hasUnusedCopy(tile);
+                    if (keep[i]) {
+                        keptCount++;
+                    }
+                }
 
-                    byte[] bytes = new byte[length];
-                    input.readFully(bytes);
+                int[] childSizes = input.readChildSizes(numChildren);
 
-                    String string = new String(bytes);
-                    if (depth == 0 && transitionMap.contains(string) || depth > 0 && transitionMap.canTransition(lastChar, string)) {
-                        childStrings[i] = string;
-                    }
+                if (keptCount > 0) {
+                    childTiles = new int[keptCount];
+                    childNodes = new Node[keptCount];
                 }
 
+                // Children which aren't kept still need skipping over to get to the next one. When
+                // their sizes are listed up front, each run of them is skipped all at once.
+                int kept = 0;
+                int bytesToSkip = 0;
                 for (int i = 0; i < numChildren; i++) {
-                    // Need to read the node regardless of whether we end up keeping it. This is to
-                    // ensure that we traverse the InputStream in the right order.
-                    boolean shouldSkipChild = childStrings[i] == null;
-                    Node childNode = new Node(input, language, transitionMap, availableStrings, shouldSkipChild, childStrings[i], depth + 1);
-                    if (!shouldSkipChild) {
-                        children.put(childStrings[i], childNode);
+                    if (!keep[i]) {
+                        if (childSizes == null) {
+                            input.skip(input.readSize());
+                        } else {
+                            bytesToSkip += childSizes[i];
+                        }
+                        continue;
+                    }
+
+                    input.skip(bytesToSkip);
+                    bytesToSkip = 0;
+
+                    if (transitionMap != null) {
+                        transitionMap.useCopy(tiles[i]);
+                    }
+                    int childSize = childSizes == null ? -1 : childSizes[i];
+                    insertChild(kept++, tiles[i], new Node(input, childSize, language, alphabet, transitionMap, tiles[i], depth + 1));
+                    if (transitionMap != null) {
+                        transitionMap.returnCopy(tiles[i]);
                     }
                 }
+                input.skip(bytesToSkip);
+            }
+        }
+
+        /**
+         * Inserts into the first {@param count} slots of {@link #childTiles} and
+         * {@link #childNodes} (which must have room for one more), keeping them sorted by tile.
+         */
+        private void insertChild(int count, int tile, Node child) {
+            int index = count;
+            while (index > 0 && childTiles[index - 1] > tile) {
+                childTiles[index] = childTiles[index - 1];
+                childNodes[index] = childNodes[index - 1];
+                index--;
             }
+            childTiles[index] = tile;
+            childNodes[index] = child;
         }
 
         @Override
         public void writeNode(OutputStream output) throws IOException {
+            TileAlphabet alphabet = TileAlphabet.of(language);
 
             ByteArrayOutputStream tempOutput = new ByteArrayOutputStream();
             DataOutputStream tempOutputData = new DataOutputStream(tempOutput);
 
             tempOutputData.writeBoolean(isWord);
 
-            tempOutputData.writeShort(children.size());
-            Set<Map.Entry<String, Node>> entries = children.entrySet();
-            for (Map.Entry<String, Node> entry : entries) {
-                String character = entry.getKey();
-                byte[] characterBytes = character.getBytes("UTF-8");
+            tempOutputData.writeShort(childTiles.length);
+            for (int tile : childTiles) {
+                byte[] characterBytes = alphabet.tileOf(tile).getBytes(UTF_8);
                 tempOutputData.writeByte(characterBytes.length);
-                for (byte b : characterBytes) {
-                    tempOutputData.writeByte(b);
-                }
+                tempOutputData.write(characterBytes);
             }
 
-            for (Map.Entry<String, Node> entry : entries) {
-                entry.getValue().writeNode(tempOutputData);
+            for (Node child : childNodes) {
+                child.writeNode(tempOutputData);
             }
 
             DataOutputStream outputData = new DataOutputStream(output);
@@ -288,47 +1210,49 @@ public class StringTrie extends Trie {
 
         @Override
         public TrieNode addSuffix(String word, int currentPosition) {
-            Node child = ensureChildAt(word, currentPosition);
-
-            if (currentPosition == word.length() - 1) {
-                child.isWord = true;
-                return child;
-            } else {
-                return child.addSuffix(word, nextPosition(word, currentPosition));
-            }
+            return addSuffix(TileAlphabet.of(language), word, currentPosition);
         }
 
-        private int nextPosition(String word, int currentPosition) {
-            return currentPosition + getCharAt(word, currentPosition).length();
-        }
-
-        private String getCharAt(String word, int position) {
-            String character = Character.toString(word.charAt(position));
-            String characterWithSuffix = language.applyMandatorySuffix(character);
-            if (!character.equals(characterWithSuffix) && word.length() >= position + characterWithSuffix.length() && word.substring(position, position + characterWithSuffix.length()).equals(characterWithSuffix)) {
-                return characterWithSuffix;
+        private Node addSuffix(TileAlphabet alphabet, String word, int currentPosition) {
+            Node node = this;
+            int position = currentPosition;
+            while (position < word.length()) {
+                String tile = tileAt(language, word, position);
+                node = node.ensureChildAt(alphabet.intern(tile));
+                position += tile.length();
             }
-            return character;
-        }
 
-        private Node maybeChildAt(String word, int position) {
-            return children.get(getCharAt(word, position));
+            node.isWord = true;
+            return node;
         }
 
-        private Node maybeChildAt(String childChar) {
-            return children.get(childChar);
+        /**
+         * @return Null if there is no child for {@param tile}, including if it is
+         * {@link TileAlphabet#NO_TILE}.
+         */
+        Node childAt(int tile) {
+            int[] tiles = childTiles;
+            for (int i = 0; i < tiles.length; i++) {
+                if (tiles[i] == tile) {
+                    return childNodes[i];
+                } else if (tiles[i] > tile) {
+                    return null;
+                }
+            }
+            return null;
         }
 
-        private Node ensureChildAt(String word, int position) {
-            String character = getCharAt(word, position);
-            Node existingNode = maybeChildAt(word, position);
-            if (existingNode == null) {
-                Node node = new Node(language);
-                children.put(character, node);
-                return node;
-            } else {
+        private Node ensureChildAt(int tile) {
+            Node existingNode = childAt(tile);
+            if (existingNode != null) {
                 return existingNode;
             }
+
+            Node node = new Node(language);
+            childTiles = Arrays.copyOf(childTiles, childTiles.length + 1);
+            childNodes = Arrays.copyOf(childNodes, childNodes.length + 1);
+            insertChild(childTiles.length - 1, tile, node);
+            return node;
         }
 
         @Override
@@ -336,30 +1260,102 @@ public class StringTrie extends Trie {
             return isWord;
         }
 
+        /**
+         * Read only view of the children of this node, keyed by tile. Used by the serializers of
+         * other trie formats, which are built from a {@link StringTrie}.
+         */
+        Map<String, Node> children() {
+            TileAlphabet alphabet = TileAlphabet.of(language);
+            Map<String, Node> children = new LinkedHashMap<>(childTiles.length * 2);
+            for (int i = 0; i < childTiles.length; i++) {
+                children.put(alphabet.tileOf(childTiles[i]), childNodes[i]);
+            }
+            return Collections.unmodifiableMap(children);
+        }
+
         @Override
         public boolean isTail() {
-            return children.size() == 0;
+            return childTiles.length == 0;
         }
 
-        private boolean isAnyWord(String word, int currentPosition) {
-            if (currentPosition == word.length()) {
-                return isWord;
+        private boolean isAnyWord(TileAlphabet alphabet, String word) {
+            Node node = this;
+            int position = 0;
+            while (position < word.length()) {
+                String tile = tileAt(language, word, position);
+                node = node.childAt(alphabet.idOf(tile));
+                if (node == null) {
+                    return false;
+                }
+                position += tile.length();
             }
-
-            Node childNode = maybeChildAt(word, currentPosition);
-            return childNode != null && childNode.isAnyWord(word, nextPosition(word, currentPosition));
+            return node.isWord;
         }
 
         @Override
         public String toString() {
-            return this.isWord ? "Word with " + this.children.size() + " children" : "Node with " + this.children.size() + " children";
+            return this.isWord ? "Word with " + this.childTiles.length + " children" : "Node with " + this.childTiles.length + " children";
         }
     }
 
+    /**
+     * Pass a null {@link TransitionMap} to load the entire trie, rather than just the parts which
+     * can be reached on a specific board.
+     */
     public static class Deserializer implements net.healeys.trie.Deserializer<StringTrie> {
+
+        private final boolean countTiles;
+
+        public Deserializer() {
+            this(false);
+        }
+
+        /**
+         * @param countTiles When loading for a board, also drop words which need more copies of a
+         *                   tile than the board has, such as "sees" on a board with only one "e".
+         *                   This is a little more work per node while loading, but leaves a smaller
+         *                   trie with fewer dead ends for the solver to explore. Has no effect on
+         *                   boards which allow cells to be revisited.
+         */
+        public Deserializer(boolean countTiles) {
+            this.countTiles = countTiles;
+        }
+
         @Override
         public StringTrie deserialize(InputStream stream, TransitionMap transitionMap, Language language) throws IOException {
-            return new StringTrie(language, stream, transitionMap);
+            TrieHeader.Payload payload = TrieHeader.open(new BufferedInputStream(stream), language, TrieHeader.Format.STRING, TrieHeader.Format.COMPACT);
+            StringTrie trie = new StringTrie(language, payload, transitionMap, countTiles);
+
+            // Nodes which can't be reached on the board are skipped, but may still be corrupt.
+            payload.finish();
+            return trie;
+        }
+
+        /**
+         * Like {@link #deserialize(InputStream, TransitionMap, Language)}, but reads straight out
+         * of {@param buffer} (from its position to its limit, neither of which are changed) rather
+         * than copying it through a stream. Subtrees which can't be reached on the board are
+         * skipped by moving past them, without reading them at all.
+         * <p>
+         * The header is checked against {@param language}, but the checksum isn't, as that would
+         * mean reading all of the bytes which this avoids reading. Check it once beforehand with
+         * {@link TrieHeader#readAndVerify(ByteBuffer)}.
+         */
+        public StringTrie deserialize(ByteBuffer buffer, TransitionMap transitionMap, Language language) throws IOException {
+            ByteBuffer file = buffer.duplicate();
+            TrieHeader.openPayload(file, language, TrieHeader.Format.STRING, TrieHeader.Format.COMPACT);
+            return new StringTrie(language, new ByteBufferInputStream(file), transitionMap, countTiles);
+        }
+
+        /**
+         * Memory maps the file behind {@param channel}, checks it against the checksum in its
+         * header, and then reads it as per {@link #deserialize(ByteBuffer, TransitionMap, Language)}.
+         * When loading tries for many boards from the same file, map and check it once instead.
+         */
+        public StringTrie deserialize(FileChannel channel, TransitionMap transitionMap, Language language) throws IOException {
+            ByteBuffer file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            TrieHeader.readAndVerify(file);
+            return deserialize(file, transitionMap, language);
         }
     }
 
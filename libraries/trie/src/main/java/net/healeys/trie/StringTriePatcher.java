@@ -0,0 +1,521 @@
+package net.healeys.trie;
+
+import com.serwylo.lexica.lang.Language;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Adds and removes words from a serialized {@link StringTrie}, without having to build the whole
+ * trie again from the dictionary.
+ * <p>
+ * Only the nodes along the path of each added or removed word are parsed and written again. Every
+ * other subtree is copied across byte for byte (the size of each node is written either before it
+ * or by its parent, so this doesn't require parsing them either). Nodes which no longer lead to
+ * any words after removing words are dropped, so the result is the same trie that would have been
+ * built from scratch, though children may be in a different order.
+ * <p>
+ * Compact tries annotated with the tiles required below each large child (see
+ * {@link StringTrie#writeCompact(OutputStream, int)}) stay annotated. The annotations of copied
+ * children are copied along with them, and the annotations of patched children are worked out
+ * from the annotations (or, for small children, the contents) of their own children.
+ */
+public class StringTriePatcher {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final Language language;
+    private final Edit root = new Edit();
+
+    private int wordsAdded = 0;
+    private int wordsRemoved = 0;
+
+    public StringTriePatcher(Language language) {
+        this.language = language;
+    }
+
+    /**
+     * Words are expected to already be lower case, as they are when building a trie.
+     */
+    public void addWord(String word) {
+        edit(word, true);
+    }
+
+    public void removeWord(String word) {
+        edit(word, false);
+    }
+
+    public void addWords(Collection<String> words) {
+        for (String word : words) {
+            addWord(word);
+        }
+    }
+
+    public void removeWords(Collection<String> words) {
+        for (String word : words) {
+            removeWord(word);
+        }
+    }
+
+    /**
+     * If the same word is both added and removed, whichever happened last wins. When working from
+     * a diff of a dictionary, TrieBuilder.patch() nets out the lines for each word first.
+     */
+    private void edit(String word, boolean add) {
+        if (word.isEmpty()) {
+            return;
+        }
+
+        Edit edit = root;
+        int position = 0;
+        while (position < word.length()) {
+            String tile = Trie.tileAt(language, word, position);
+            Edit child = edit.children.get(tile);
+            if (child == null) {
+                child = new Edit();
+                edit.children.put(tile, child);
+            }
+            edit = child;
+            position += tile.length();
+        }
+
+        edit.isWord = add;
+    }
+
+    /**
+     * Reads a trie written by either {@link StringTrie#write(OutputStream)} or
+     * {@link StringTrie#writeCompact(OutputStream)} from {@param in}, and writes the patched trie
+     * to {@param out} in the same format. If it has a {@link TrieHeader}, then so does the patched
+     * trie, with the word count and checksum updated to match.
+     */
+    public void patch(InputStream in, OutputStream out) throws IOException {
+        wordsAdded = 0;
+        wordsRemoved = 0;
+
+        TrieHeader.Payload payload = TrieHeader.open(new BufferedInputStream(in), language, TrieHeader.Format.STRING, TrieHeader.Format.COMPACT);
+        TrieHeader header = payload.getHeader();
+        StringTrie.NodeReader reader = StringTrie.NodeReader.open(payload);
+        NodeWriter writer = reader instanceof StringTrie.CompactNodeReader
+                ? new CompactNodeWriter((StringTrie.CompactNodeReader) reader)
+                : new NodeWriter();
+
+        // The whole trie needs to be patched before the symbol table can be written, because the
+        // compact format may need new tiles adding to it.
+        byte[] patchedNodes = patchNode(reader, writer, root, -1, true).bytes;
+        payload.finish();
+
+        ByteArrayOutputStream patched = new ByteArrayOutputStream(patchedNodes.length + 1024);
+        writer.writeSymbols(patched);
+        patched.write(patchedNodes);
+
+        if (header != null) {
+            int wordCount = header.getWordCount() + wordsAdded - wordsRemoved;
+            new TrieHeader(header.getFormat(), header.getLanguageName(), wordCount, patched.toByteArray()).write(out);
+        }
+
+        patched.writeTo(out);
+        out.flush();
+    }
+
+    /**
+     * Number of words which weren't in the trie, but are now. Adding a word which was already
+     * present isn't counted.
+     */
+    public int getWordsAdded() {
+        return wordsAdded;
+    }
+
+    /**
+     * Number of words which were in the trie, but now aren't. Removing a word which wasn't present
+     * isn't counted.
+     */
+    public int getWordsRemoved() {
+        return wordsRemoved;
+    }
+
+    /**
+     * @param size Number of bytes taken up by the node in the original trie, or -1 if not known.
+     * @return The node (including its size, if the format starts each node with one), or null if
+     * it no longer leads to any words.
+     */
+    private WrittenNode patchNode(StringTrie.NodeReader reader, NodeWriter writer, Edit edit, int size, boolean isRoot) throws IOException {
+        reader.startNode(); // Size of the node in the original format, which will change.
+        reader.readRequiredTiles(size); // As will the tiles it requires.
+
+        int wordAndChildCount = reader.readWordAndChildCount();
+        boolean isWord = (wordAndChildCount & 1) != 0;
+        if (edit.isWord != null && edit.isWord != isWord) {
+            if (edit.isWord) {
+                wordsAdded++;
+            } else {
+                wordsRemoved++;
+            }
+            isWord = edit.isWord;
+        }
+
+        int numChildren = wordAndChildCount >>> 1;
+        String[] tiles = new String[numChildren];
+        for (int i = 0; i < numChildren; i++) {
+            tiles[i] = reader.readTile();
+        }
+
+        int[] childSizes = reader.readChildSizes(numChildren);
+
+        List<String> keptTiles = new ArrayList<>(numChildren);
+        List<WrittenNode> keptChildren = new ArrayList<>(numChildren);
+        Set<String> untouched = new LinkedHashSet<>(edit.children.keySet());
+        for (int i = 0; i < numChildren; i++) {
+            Edit childEdit = edit.children.get(tiles[i]);
+            untouched.remove(tiles[i]);
+
+            WrittenNode child = childEdit == null
+                    ? copyNode(reader, writer, childSizes, i)
+                    : patchNode(reader, writer, childEdit, childSizes == null ? -1 : childSizes[i], false);
+            if (child != null) {
+                keptTiles.add(tiles[i]);
+                keptChildren.add(child);
+            }
+        }
+
+        // Anything left over is a new path through the trie, which only matters if it adds words.
+        for (String tile : untouched) {
+            WrittenNode child = newNode(writer, edit.children.get(tile));
+            if (child != null) {
+                keptTiles.add(tile);
+                keptChildren.add(child);
+            }
+        }
+
+        if (!isRoot && !isWord && keptTiles.isEmpty()) {
+            return null;
+        }
+
+        return writer.writeNode(isWord, keptTiles, keptChildren, !isRoot);
+    }
+
+    /**
+     * @param childSizes As per {@link StringTrie.NodeReader#readChildSizes(int)}.
+     */
+    private static WrittenNode copyNode(StringTrie.NodeReader reader, NodeWriter writer, int[] childSizes, int index) throws IOException {
+        if (childSizes != null) {
+            byte[] node = new byte[childSizes[index]];
+            reader.input.readFully(node);
+
+            if (!writer.isAnnotated()) {
+                return new WrittenNode(node, false, null);
+            }
+
+            // Small nodes aren't annotated, but are quick to read through instead.
+            StringTrie.NodeReader nodeReader = reader.readerFor(node);
+            nodeReader.startNode();
+            BitSet requiredTiles = nodeReader.readRequiredTiles(node.length);
+            if (requiredTiles == null) {
+                return new WrittenNode(node, readRequiredTiles(reader.readerFor(node), writer, node.length));
+            }
+
+            boolean isWord = (nodeReader.readWordAndChildCount() & 1) != 0;
+            return new WrittenNode(node, isWord, requiredTiles);
+        }
+
+        // Otherwise the node starts with its own size, which is copied along with the rest of it.
+        int size = reader.readSize();
+        byte[] node = new byte[4 + size];
+        ByteBuffer.wrap(node).putInt(size);
+        reader.input.readFully(node, 4, size);
+        return new WrittenNode(node, false, null);
+    }
+
+    /**
+     * Reads through a node which isn't annotated (and so neither is anything below it), to work
+     * out what it would be annotated with.
+     *
+     * @return The node without any bytes.
+     */
+    private static WrittenNode readRequiredTiles(StringTrie.NodeReader reader, NodeWriter writer, int size) throws IOException {
+        reader.startNode();
+        reader.readRequiredTiles(size);
+        int wordAndChildCount = reader.readWordAndChildCount();
+        int numChildren = wordAndChildCount >>> 1;
+        List<String> tiles = new ArrayList<>(numChildren);
+        for (int i = 0; i < numChildren; i++) {
+            tiles.add(reader.readTile());
+        }
+
+        int[] childSizes = reader.readChildSizes(numChildren);
+        List<WrittenNode> children = new ArrayList<>(numChildren);
+        for (int i = 0; i < numChildren; i++) {
+            children.add(readRequiredTiles(reader, writer, childSizes[i]));
+        }
+
+        return new WrittenNode(null, (wordAndChildCount & 1) != 0, writer.requiredByAll(tiles, children));
+    }
+
+    /**
+     * A node which isn't in the original trie. Removals below it are ignored, because there was
+     * nothing there to remove.
+     */
+    private WrittenNode newNode(NodeWriter writer, Edit edit) throws IOException {
+        boolean isWord = edit.isWord != null && edit.isWord;
+        if (isWord) {
+            wordsAdded++;
+        }
+
+        List<String> tiles = new ArrayList<>(edit.children.size());
+        List<WrittenNode> children = new ArrayList<>(edit.children.size());
+        for (Map.Entry<String, Edit> entry : edit.children.entrySet()) {
+            WrittenNode child = newNode(writer, entry.getValue());
+            if (child != null) {
+                tiles.add(entry.getKey());
+                children.add(child);
+            }
+        }
+
+        if (!isWord && tiles.isEmpty()) {
+            return null;
+        }
+
+        return writer.writeNode(isWord, tiles, children, true);
+    }
+
+    /**
+     * A node as written by a {@link NodeWriter}.
+     */
+    private static class WrittenNode {
+
+        private final byte[] bytes;
+
+        /**
+         * Only known if the trie is annotated, because it is only needed for working out
+         * {@link #requiredTiles}.
+         */
+        private final boolean isWord;
+
+        /**
+         * The id of every tile required by all of the words below the node, or null if the trie
+         * isn't annotated with them.
+         */
+        private final BitSet requiredTiles;
+
+        WrittenNode(byte[] bytes, boolean isWord, BitSet requiredTiles) {
+            this.bytes = bytes;
+            this.isWord = isWord;
+            this.requiredTiles = requiredTiles;
+        }
+
+        /**
+         * Takes the word and required tiles from {@param node}, but the bytes from {@param bytes}.
+         */
+        WrittenNode(byte[] bytes, WrittenNode node) {
+            this(bytes, node.isWord, node.requiredTiles);
+        }
+    }
+
+    /**
+     * Same layout as {@link StringTrie.Node#writeNode(OutputStream)}.
+     */
+    private static class NodeWriter {
+
+        void writeSymbols(OutputStream out) throws IOException {
+        }
+
+        /**
+         * Whether nodes are annotated with the tiles they require, in which case each
+         * {@link WrittenNode} needs to know what they are.
+         */
+        boolean isAnnotated() {
+            return false;
+        }
+
+        int tileId(String tile) {
+            throw new UnsupportedOperationException("Tiles don't have ids in this format");
+        }
+
+        /**
+         * The tiles required by every word below a node with {@param children}. Same as in
+         * {@link StringTrie#writeCompact(OutputStream, int)}.
+         */
+        BitSet requiredByAll(List<String> tiles, List<WrittenNode> children) {
+            BitSet requiredByAll = null;
+            for (int i = 0; i < children.size(); i++) {
+                WrittenNode child = children.get(i);
+                BitSet requiredThroughChild = child.isWord ? new BitSet() : (BitSet) child.requiredTiles.clone();
+                requiredThroughChild.set(tileId(tiles.get(i)));
+                if (requiredByAll == null) {
+                    requiredByAll = requiredThroughChild;
+                } else {
+                    requiredByAll.and(requiredThroughChild);
+                }
+            }
+            return requiredByAll == null ? new BitSet() : requiredByAll;
+        }
+
+        void writeWordAndChildCount(DataOutputStream out, boolean isWord, int childCount) throws IOException {
+            out.writeBoolean(isWord);
+            out.writeShort(childCount);
+        }
+
+        void writeTile(DataOutputStream out, String tile) throws IOException {
+            byte[] bytes = tile.getBytes(UTF_8);
+            out.writeByte(bytes.length);
+            out.write(bytes);
+        }
+
+        /**
+         * Everything up to (but not including) the children themselves.
+         */
+        void writeTilesAndSizes(DataOutputStream out, boolean isWord, List<String> tiles, List<WrittenNode> children) throws IOException {
+            writeWordAndChildCount(out, isWord, tiles.size());
+            for (String tile : tiles) {
+                writeTile(out, tile);
+            }
+        }
+
+        /**
+         * @param canAnnotate False for the root, which has no parent to list its size.
+         */
+        WrittenNode writeNode(boolean isWord, List<String> tiles, List<WrittenNode> children, boolean canAnnotate) throws IOException {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            DataOutputStream bodyData = new DataOutputStream(body);
+            writeTilesAndSizes(bodyData, isWord, tiles, children);
+            for (WrittenNode child : children) {
+                bodyData.write(child.bytes);
+            }
+
+            ByteArrayOutputStream node = new ByteArrayOutputStream(body.size() + 4);
+            DataOutputStream nodeData = new DataOutputStream(node);
+            nodeData.writeInt(body.size());
+            body.writeTo(nodeData);
+            return new WrittenNode(node.toByteArray(), isWord, null);
+        }
+    }
+
+    /**
+     * Same layout as {@link StringTrie#writeCompact(OutputStream, int)}, and annotated in the same
+     * way as the original trie. Tiles which weren't in the original symbol table are appended to
+     * the end of it, so that the ids used by every copied node are still valid.
+     */
+    private static class CompactNodeWriter extends NodeWriter {
+
+        private final int minAnnotatedSize;
+        private final List<String> tiles;
+        private final Map<String, Integer> tileIds = new HashMap<>();
+
+        CompactNodeWriter(StringTrie.CompactNodeReader reader) {
+            this.minAnnotatedSize = reader.getMinAnnotatedSize();
+            this.tiles = new ArrayList<>(Arrays.asList(reader.getTiles()));
+            for (int i = 0; i < tiles.size(); i++) {
+                tileIds.put(tiles.get(i), i);
+            }
+        }
+
+        @Override
+        boolean isAnnotated() {
+            return minAnnotatedSize > 0;
+        }
+
+        @Override
+        int tileId(String tile) {
+            Integer id = tileIds.get(tile);
+            if (id == null) {
+                id = tiles.size();
+                tiles.add(tile);
+                tileIds.put(tile, id);
+            }
+            return id;
+        }
+
+        @Override
+        void writeSymbols(OutputStream out) throws IOException {
+            out.write(StringTrie.COMPACT_FORMAT_MARKER);
+            if (isAnnotated()) {
+                Varint.write(out, StringTrie.COMPACT_FLAG_REQUIRED_TILES);
+                Varint.write(out, minAnnotatedSize);
+            } else {
+                Varint.write(out, 0);
+            }
+            Varint.write(out, tiles.size());
+            for (String tile : tiles) {
+                byte[] bytes = tile.getBytes(UTF_8);
+                Varint.write(out, bytes.length);
+                out.write(bytes);
+            }
+        }
+
+        @Override
+        void writeTilesAndSizes(DataOutputStream out, boolean isWord, List<String> tiles, List<WrittenNode> children) throws IOException {
+            super.writeTilesAndSizes(out, isWord, tiles, children);
+            for (WrittenNode child : children) {
+                Varint.write(out, child.bytes.length);
+            }
+        }
+
+        @Override
+        WrittenNode writeNode(boolean isWord, List<String> tiles, List<WrittenNode> children, boolean canAnnotate) throws IOException {
+            // No size of its own, as the parent has already listed it.
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            DataOutputStream bodyData = new DataOutputStream(body);
+            writeTilesAndSizes(bodyData, isWord, tiles, children);
+            for (WrittenNode child : children) {
+                bodyData.write(child.bytes);
+            }
+
+            if (!isAnnotated()) {
+                return new WrittenNode(body.toByteArray(), isWord, null);
+            }
+
+            BitSet requiredTiles = requiredByAll(tiles, children);
+            byte[] annotation = StringTrie.toBytes(requiredTiles);
+            int annotatedSize = body.size() + Varint.size(annotation.length) + annotation.length;
+            if (!canAnnotate || annotatedSize < minAnnotatedSize) {
+                return new WrittenNode(body.toByteArray(), isWord, requiredTiles);
+            }
+
+            ByteArrayOutputStream node = new ByteArrayOutputStream(annotatedSize);
+            Varint.write(node, annotation.length);
+            node.write(annotation);
+            body.writeTo(node);
+            return new WrittenNode(node.toByteArray(), isWord, requiredTiles);
+        }
+
+        @Override
+        void writeWordAndChildCount(DataOutputStream out, boolean isWord, int childCount) throws IOException {
+            Varint.write(out, childCount << 1 | (isWord ? 1 : 0));
+        }
+
+        @Override
+        void writeTile(DataOutputStream out, String tile) throws IOException {
+            Varint.write(out, tileId(tile));
+        }
+    }
+
+    /**
+     * The words to add or remove, arranged in the same shape as the trie so that they can be
+     * applied in a single pass over it.
+     */
+    private static class Edit {
+
+        private final Map<String, Edit> children = new HashMap<>();
+
+        /**
+         * Null if this isn't the end of any added or removed word.
+         */
+        private Boolean isWord;
+
+    }
+
+}
@@ -0,0 +1,91 @@
+package net.healeys.trie;
+
+import com.serwylo.lexica.lang.Language;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Gives each tile of a {@link Language} (including tiles with a mandatory suffix, such as "qu")
+ * a small int id, so that tries and boards can compare tiles as ints and store children in
+ * arrays indexed by tile, rather than hashing strings at every step of the solver.
+ * <p>
+ * Ids are handed out the first time each tile is seen, and are only meaningful for the lifetime of
+ * the process. They are never written to disk. There is one alphabet per {@link Language#getName()}
+ * (see {@link #of(Language)}), so that a trie and a board for the same language always agree on
+ * the ids, even when they were given different {@link Language} instances.
+ */
+public final class TileAlphabet {
+
+    /**
+     * Returned by {@link #idOf(String)} for tiles which haven't been given an id yet. No trie can
+     * contain such a tile, so there is no need to give it one just to look it up.
+     */
+    public static final int NO_TILE = -1;
+
+    private static final Map<String, TileAlphabet> alphabets = new HashMap<>();
+
+    public static TileAlphabet of(Language language) {
+        synchronized (alphabets) {
+            TileAlphabet alphabet = alphabets.get(language.getName());
+            if (alphabet == null) {
+                alphabet = new TileAlphabet();
+                alphabets.put(language.getName(), alphabet);
+            }
+            return alphabet;
+        }
+    }
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] tiles = new String[0];
+
+    private TileAlphabet() {
+    }
+
+    /**
+     * @return The id of {@param tile}, or {@link #NO_TILE} if it doesn't have one yet.
+     */
+    public int idOf(String tile) {
+        Integer id = ids.get(tile);
+        return id == null ? NO_TILE : id;
+    }
+
+    /**
+     * @return The id of {@param tile}, giving it the next available id if it doesn't have one yet.
+     */
+    public int intern(String tile) {
+        Integer id = ids.get(tile);
+        if (id != null) {
+            return id;
+        }
+
+        synchronized (this) {
+            id = ids.get(tile);
+            if (id == null) {
+                String[] grown = new String[tiles.length + 1];
+                System.arraycopy(tiles, 0, grown, 0, tiles.length);
+                id = tiles.length;
+                grown[id] = tile;
+
+                // Publish the tile before its id, so that anyone who can see the id can also look
+                // up the tile.
+                tiles = grown;
+                ids.put(tile, id);
+            }
+            return id;
+        }
+    }
+
+    public String tileOf(int id) {
+        return tiles[id];
+    }
+
+    /**
+     * Number of tiles given an id so far. Every id is less than this.
+     */
+    public int size() {
+        return tiles.length;
+    }
+
+}
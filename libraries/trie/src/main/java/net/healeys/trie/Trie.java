@@ -6,6 +6,7 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 public abstract class Trie implements WordFilter {
 
@@ -15,12 +16,61 @@ public abstract class Trie implements WordFilter {
         this.language = language;
     }
 
+    /**
+     * The tile at {@param position} in {@param word}. Usually this is a single character, unless
+     * the language has a mandatory suffix for that character (e.g. "qu" in English), in which case
+     * the suffix is included if it is present in the word.
+     */
+    static String tileAt(Language language, String word, int position) {
+        String character = Character.toString(word.charAt(position));
+        String characterWithSuffix = language.applyMandatorySuffix(character);
+        if (!character.equals(characterWithSuffix) && word.length() >= position + characterWithSuffix.length() && word.substring(position, position + characterWithSuffix.length()).equals(characterWithSuffix)) {
+            return characterWithSuffix;
+        }
+        return character;
+    }
+
     public abstract void addWord(String w);
 
     public abstract boolean isWord(String w);
 
     public abstract void write(OutputStream out) throws IOException;
 
-    public abstract Map<String, List<Solution>> solver(TransitionMap m, WordFilter filter);
+    /**
+     * Finds every path on {@param m} which spells out a word accepted by {@param filter} (or any
+     * word if the filter is null), and passes each of them to {@param sink} as they are found.
+     */
+    public abstract void solve(TransitionMap m, WordFilter filter, SolutionSink sink);
+
+    /**
+     * All solutions to the board, keyed by (and sorted by) word. Each word has one
+     * {@link Solution} for every way it can be spelled on the board.
+     */
+    public Map<String, List<Solution>> solver(TransitionMap m, WordFilter filter) {
+        SolutionSink.Collect sink = new SolutionSink.Collect();
+        solve(m, filter, sink);
+        return sink.getSolutions();
+    }
+
+    /**
+     * Number of distinct words on the board with at least {@param minWordLength} characters. This
+     * is the same as the size of {@link #solver(TransitionMap, WordFilter)} with a
+     * {@link WordFilter.MinLength} filter, but implementations may be able to count words
+     * without building the map (or even the words themselves).
+     */
+    public int countWords(TransitionMap m, int minWordLength) {
+        SolutionSink.WordCount count = new SolutionSink.WordCount();
+        solve(m, new WordFilter.MinLength(minWordLength), count);
+        return count.getCount();
+    }
+
+    /**
+     * Same results as {@link #solver(TransitionMap, WordFilter)}, but implementations may split
+     * the work up and run it on {@param executor}. Waits for all of the work to finish before
+     * returning. By default, this just solves the board on the calling thread.
+     */
+    public Map<String, List<Solution>> solver(TransitionMap m, WordFilter filter, ExecutorService executor) {
+        return solver(m, filter);
+    }
 
 }
@@ -0,0 +1,423 @@
+package net.healeys.trie;
+
+import com.serwylo.lexica.lang.Language;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Written at the start of each trie file by {@link com.serwylo.lexica.trie.util.TrieBuilder}, so
+ * that a file can be identified and checked before it is parsed:
+ * <ul>
+ *     <li>The magic bytes "LXTR".</li>
+ *     <li>The version of this header, as an unsigned byte.</li>
+ *     <li>The {@link Format} of the rest of the file, as an unsigned byte.</li>
+ *     <li>The {@link Language#getName()} the trie was built for, as modified UTF-8.</li>
+ *     <li>The number of words in the trie, the number of bytes after the header, and the CRC32 of
+ *     those bytes, each as a big endian int.</li>
+ * </ul>
+ * Files written before this header existed start straight away with the trie itself, and are
+ * still read by each {@link Deserializer}. The first byte of each format is either
+ * {@link StringTrie#COMPACT_FORMAT_MARKER} or the high byte of a (small) int, never "L", so
+ * the two are easy to tell apart.
+ */
+public final class TrieHeader {
+
+    private static final byte[] MAGIC = {'L', 'X', 'T', 'R'};
+
+    /**
+     * Magic, version, format, a language name of up to 64 bytes and the three ints.
+     */
+    private static final int MAX_HEADER_SIZE = 4 + 1 + 1 + 2 + 64 + 4 * 3;
+
+    public static final int VERSION = 1;
+
+    public enum Format {
+
+        /**
+         * See {@link StringTrie#write(OutputStream)}.
+         */
+        STRING(1),
+
+        /**
+         * See {@link StringTrie#writeCompact(OutputStream)}.
+         */
+        COMPACT(2),
+
+        /**
+         * See {@link MappedTrie#write(StringTrie, OutputStream)}.
+         */
+        MAPPED(3),
+
+        /**
+         * See {@link DawgTrie#write(OutputStream)}.
+         */
+        DAWG(4);
+
+        private final int id;
+
+        Format(int id) {
+            this.id = id;
+        }
+
+        static Format fromId(int id) throws IOException {
+            for (Format format : values()) {
+                if (format.id == id) {
+                    return format;
+                }
+            }
+
+            throw new IOException("Unsupported trie format: " + id);
+        }
+
+        /**
+         * The deserializer which reads tries in this format.
+         */
+        public Deserializer<? extends Trie> deserializer() {
+            switch (this) {
+                case MAPPED:
+                    return new MappedTrie.Deserializer();
+
+                case DAWG:
+                    return new DawgTrie.Deserializer();
+
+                default:
+                    return new StringTrie.Deserializer();
+            }
+        }
+    }
+
+    private final Format format;
+    private final String languageName;
+    private final int wordCount;
+    private final int payloadLength;
+    private final int checksum;
+
+    private TrieHeader(Format format, String languageName, int wordCount, int payloadLength, int checksum) {
+        this.format = format;
+        this.languageName = languageName;
+        this.wordCount = wordCount;
+        this.payloadLength = payloadLength;
+        this.checksum = checksum;
+    }
+
+    /**
+     * @param payload Everything which will be written after the header.
+     */
+    public TrieHeader(Format format, String languageName, int wordCount, byte[] payload) {
+        this(format, languageName, wordCount, payload.length, crc32(payload));
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    public String getLanguageName() {
+        return languageName;
+    }
+
+    public int getWordCount() {
+        return wordCount;
+    }
+
+    /**
+     * Number of bytes in the file after the header.
+     */
+    public int getPayloadLength() {
+        return payloadLength;
+    }
+
+    public void write(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.write(MAGIC);
+        data.writeByte(VERSION);
+        data.writeByte(format.id);
+        data.writeUTF(languageName);
+        data.writeInt(wordCount);
+        data.writeInt(payloadLength);
+        data.writeInt(checksum);
+        data.flush();
+    }
+
+    /**
+     * Reads just the header, e.g. to find out how many words are in a trie without parsing it.
+     *
+     * @return Null if {@param in} doesn't start with a header, in which case it is a trie written
+     * before headers were added.
+     */
+    public static TrieHeader read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        byte[] magic = new byte[MAGIC.length];
+        int read = 0;
+        while (read < magic.length) {
+            int count = data.read(magic, read, magic.length - read);
+            if (count < 0) {
+                return null;
+            }
+            read += count;
+        }
+
+        if (!Arrays.equals(magic, MAGIC)) {
+            return null;
+        }
+
+        int version = data.readUnsignedByte();
+        if (version > VERSION) {
+            throw new IOException("Trie header version " + version + " is newer than the supported version " + VERSION);
+        }
+
+        return new TrieHeader(Format.fromId(data.readUnsignedByte()), data.readUTF(), data.readInt(), data.readInt(), data.readInt());
+    }
+
+    /**
+     * Like {@link #read(InputStream)}, except that if there is no header then {@param in} is left
+     * where it was, so that the trie can be read from the start.
+     */
+    static TrieHeader readIfPresent(InputStream in) throws IOException {
+        if (!in.markSupported()) {
+            throw new IllegalArgumentException("Need to be able to reset " + in.getClass().getSimpleName() + " if there is no header");
+        }
+
+        in.mark(MAGIC.length);
+        TrieHeader header = read(in);
+        if (header == null) {
+            in.reset();
+        }
+        return header;
+    }
+
+    /**
+     * Like {@link #readIfPresent(InputStream)}, but without wrapping {@param in} in another stream
+     * which may read ahead, so that the position of its {@link FileChannel} is still meaningful.
+     */
+    static TrieHeader readIfPresent(FileInputStream in) throws IOException {
+        FileChannel channel = in.getChannel();
+        ByteBuffer magic = ByteBuffer.allocate(MAGIC.length);
+        long position = channel.position();
+        while (magic.hasRemaining() && channel.read(magic, position + magic.position()) > 0) {
+            // Keep reading until either the buffer is full or the file ends.
+        }
+
+        if (!Arrays.equals(magic.array(), MAGIC)) {
+            return null;
+        }
+
+        return read(in);
+    }
+
+    /**
+     * Reads the header at the position of {@param file} (which is left where it is), and checks the
+     * rest of the file against the length and checksum in the header. Tries which are kept in
+     * memory and loaded from many times only need checking once, after which
+     * {@link StringTrie.Deserializer#deserialize(ByteBuffer, TransitionMap, Language)} can skip
+     * straight over the parts of the trie it doesn't need.
+     *
+     * @return Null if there is no header, in which case there is nothing to check the trie against.
+     */
+    public static TrieHeader readAndVerify(ByteBuffer file) throws IOException {
+        ByteBuffer payload = file.duplicate();
+        TrieHeader header = readIfPresent(new ByteBufferInputStream(payload));
+        if (header != null) {
+            header.verify(payload);
+        }
+        return header;
+    }
+
+    /**
+     * Reads the trie from {@param in} with whichever {@link Deserializer} its header asks for, or
+     * {@link StringTrie.Deserializer} if it doesn't have a header.
+     */
+    public static Trie deserialize(InputStream in, TransitionMap transitionMap, Language language) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(in);
+        buffered.mark(MAX_HEADER_SIZE);
+        TrieHeader header = read(buffered);
+        buffered.reset();
+
+        Format format = header == null ? Format.STRING : header.format;
+        return format.deserializer().deserialize(buffered, transitionMap, language);
+    }
+
+    /**
+     * Reads the header (if there is one) from {@param in} and checks it against {@param language}
+     * and {@param formats}.
+     *
+     * @param in Must support {@link InputStream#mark(int)}.
+     * @return The rest of the file, which checks its own length and checksum as it is read.
+     */
+    static Payload open(InputStream in, Language language, Format... formats) throws IOException {
+        TrieHeader header = readIfPresent(in);
+        if (header != null) {
+            header.check(language, formats);
+        }
+
+        return new Payload(in, header);
+    }
+
+    /**
+     * Like {@link #open(InputStream, Language, Format...)}, but for a trie which is already in
+     * memory. Moves {@param file} past the header (if there is one) and limits it to the payload,
+     * without reading the payload or checking its checksum.
+     */
+    static void openPayload(ByteBuffer file, Language language, Format... formats) throws IOException {
+        TrieHeader header = readIfPresent(new ByteBufferInputStream(file));
+        if (header == null) {
+            return;
+        }
+
+        header.check(language, formats);
+        if (file.remaining() < header.payloadLength) {
+            throw new IOException("Trie is truncated, expected " + header.payloadLength + " bytes but found " + file.remaining());
+        }
+        ((Buffer) file).limit(file.position() + header.payloadLength);
+    }
+
+    /**
+     * Throws if this isn't the header of a trie in one of {@param formats} for {@param language},
+     * e.g. because the wrong file was bundled with the app.
+     */
+    void check(Language language, Format... formats) throws IOException {
+        if (!languageName.equals(language.getName())) {
+            throw new IOException("Expected a trie for " + language.getName() + ", but found one for " + languageName);
+        }
+
+        for (Format expected : formats) {
+            if (format == expected) {
+                return;
+            }
+        }
+
+        throw new IOException("Expected a trie in one of the " + Arrays.toString(formats) + " formats, but found " + format);
+    }
+
+    void verify(ByteBuffer payload) throws IOException {
+        if (payload.remaining() != payloadLength) {
+            throw new IOException("Expected " + payloadLength + " bytes of trie, but found " + payload.remaining());
+        }
+
+        ByteBuffer bytes = payload.duplicate();
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[8192];
+        while (bytes.hasRemaining()) {
+            int count = Math.min(buffer.length, bytes.remaining());
+            bytes.get(buffer, 0, count);
+            crc.update(buffer, 0, count);
+        }
+
+        verify((int) crc.getValue());
+    }
+
+    private void verify(int actualChecksum) throws IOException {
+        if (actualChecksum != checksum) {
+            throw new IOException("Trie is corrupt, expected checksum " + Integer.toHexString(checksum) + " but found " + Integer.toHexString(actualChecksum));
+        }
+    }
+
+    private static int crc32(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Reads everything after the header, checking it against the length and checksum in the
+     * header as it goes. Reading past the end of the payload behaves like the end of the stream.
+     * <p>
+     * Deserializers which may not need to read every last byte should call {@link #finish()}, so
+     * that corruption in the parts they skipped still gets noticed.
+     */
+    static class Payload extends FilterInputStream {
+
+        private final TrieHeader header;
+        private final CRC32 crc = new CRC32();
+        private final byte[] single = new byte[1];
+        private int remaining;
+
+        private Payload(InputStream in, TrieHeader header) {
+            super(in);
+            this.header = header;
+            this.remaining = header == null ? Integer.MAX_VALUE : header.payloadLength;
+        }
+
+        /**
+         * Null if the trie doesn't have a header, in which case nothing is checked.
+         */
+        TrieHeader getHeader() {
+            return header;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (header == null) {
+                return in.read(b, off, len);
+            }
+
+            if (remaining == 0) {
+                return -1;
+            }
+
+            int count = in.read(b, off, Math.min(len, remaining));
+            if (count < 0) {
+                throw new IOException("Trie is truncated, expected another " + remaining + " bytes");
+            }
+
+            crc.update(b, off, count);
+            remaining -= count;
+            if (remaining == 0) {
+                header.verify((int) crc.getValue());
+            }
+            return count;
+        }
+
+        /**
+         * Skipped bytes still need to be included in the checksum, so are read rather than skipped.
+         */
+        @Override
+        public long skip(long n) throws IOException {
+            if (header == null) {
+                return in.skip(n);
+            }
+
+            byte[] buffer = new byte[(int) Math.min(n, 8192)];
+            long skipped = 0;
+            while (skipped < n) {
+                int count = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+                if (count < 0) {
+                    break;
+                }
+                skipped += count;
+            }
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        /**
+         * Reads (and checks) whatever is left of the payload.
+         */
+        void finish() throws IOException {
+            if (header != null) {
+                skip(remaining);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,49 @@
+package net.healeys.trie;
+
+import java.io.DataInput;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Unsigned variable length ints, seven bits per byte, least significant group first, with the high
+ * bit set on every byte except the last. Most of the numbers in a trie (child counts, tile ids, and
+ * the size of nodes near the leaves) fit in a single byte.
+ */
+final class Varint {
+
+    private Varint() {
+    }
+
+    static void write(OutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    static int read(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    /**
+     * Number of bytes {@link #write(OutputStream, int)} will use for {@param value}.
+     */
+    static int size(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            size++;
+            value >>>= 7;
+        }
+        return size;
+    }
+
+}
@@ -0,0 +1,180 @@
+package com.serwylo.lexica.trie.tests;
+
+import com.serwylo.lexica.lang.EnglishGB;
+import com.serwylo.lexica.lang.EnglishUS;
+import com.serwylo.lexica.lang.Language;
+import com.serwylo.lexica.lang.Persian;
+
+import com.serwylo.lexica.trie.util.TrieBuilder;
+
+import net.healeys.trie.StringTrie;
+import net.healeys.trie.StringTriePatcher;
+import net.healeys.trie.Trie;
+import net.healeys.trie.WordFilter;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CompactStringTrieTest extends TrieTest {
+
+    @Test
+    public void testSmallDictionaries() throws IOException {
+        String[] words = new String[]{"quit", "aqua", "a", "alibi", "LongerWordThanA", "queen", "MONARCH"};
+        assertTrieMatches("Compact GB trie", deserialize(new EnglishGB(), build(new EnglishGB(), words)), words, new EnglishGB());
+
+        String[] persianWords = new String[]{"آیی", "اغوایم", "وزشها", "وزیدنیمان",};
+        assertTrieMatches("Compact Persian trie", deserialize(new Persian(), build(new Persian(), persianWords)), persianWords, new Persian());
+    }
+
+    @Test
+    public void testOutputIsDeterministic() throws IOException {
+        Language language = new EnglishGB();
+        String[] words = new String[]{"quit", "aqua", "a", "alibi", "queen", "monarch"};
+        String[] reversed = new String[]{"monarch", "queen", "alibi", "a", "aqua", "quit"};
+        assertArrayEquals(serializeCompact(build(language, words)), serializeCompact(build(language, reversed)));
+    }
+
+    @Test
+    public void testFullDictionaryMatchesLegacyFormat() throws IOException {
+        Language language = new EnglishUS();
+        String[] words = FullTrieTest.readDictionary(language);
+        StringTrie trie = build(language, words);
+
+        byte[] legacyBytes = serialize(trie);
+        byte[] compactBytes = serializeCompact(trie);
+        assertTrue("Compact trie (" + compactBytes.length + " bytes) should be much smaller than the legacy trie (" + legacyBytes.length + " bytes)", compactBytes.length < legacyBytes.length * 3 / 4);
+
+        Trie compact = deserialize(language, trie);
+        for (String word : words) {
+            assertTrue(word, compact.isWord(word.toLowerCase()));
+        }
+
+        for (int width = 4; width <= 6; width++) {
+            for (long seed = 0; seed < 10; seed++) {
+                SquareBoard board = SquareBoard.random(language, words, width, seed);
+                Trie legacyForBoard = new StringTrie.Deserializer().deserialize(new ByteArrayInputStream(legacyBytes), board, language);
+                Trie compactForBoard = new StringTrie.Deserializer().deserialize(new ByteArrayInputStream(compactBytes), board, language);
+                assertSameSolutions("Board " + width + "x" + width + " with seed " + seed, legacyForBoard.solver(board, new WordFilter.MinLength(3)), compactForBoard.solver(board, new WordFilter.MinLength(3)));
+
+                Trie countedForBoard = new StringTrie.Deserializer(true).deserialize(new ByteArrayInputStream(compactBytes), board, language);
+                assertSameSolutions("Board " + width + "x" + width + " with seed " + seed + ", counting tiles", legacyForBoard.solver(board, new WordFilter.MinLength(3)), countedForBoard.solver(board, new WordFilter.MinLength(3)));
+            }
+        }
+    }
+
+    @Test
+    public void testLoadingFromBufferMatchesStream() throws IOException {
+        Language language = new EnglishUS();
+        String[] words = FullTrieTest.readDictionary(language);
+        byte[] bytes = TrieBuilder.serialize(build(language, words), language, TrieBuilder.Format.COMPACT);
+
+        File file = File.createTempFile("trie", ".bin");
+        file.deleteOnExit();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(bytes);
+        }
+
+        try (FileInputStream in = new FileInputStream(file)) {
+            for (long seed = 0; seed < 10; seed++) {
+                SquareBoard board = SquareBoard.random(language, words, 5, seed);
+                Trie fromStream = new StringTrie.Deserializer().deserialize(new ByteArrayInputStream(bytes), board, language);
+                Trie fromBuffer = new StringTrie.Deserializer().deserialize(ByteBuffer.wrap(bytes), board, language);
+                Trie fromChannel = new StringTrie.Deserializer().deserialize(in.getChannel(), board, language);
+                assertSameSolutions("Buffer for board with seed " + seed, fromStream.solver(board, new WordFilter.MinLength(3)), fromBuffer.solver(board, new WordFilter.MinLength(3)));
+                assertSameSolutions("Channel for board with seed " + seed, fromStream.solver(board, new WordFilter.MinLength(3)), fromChannel.solver(board, new WordFilter.MinLength(3)));
+            }
+        }
+    }
+
+    @Test
+    public void testPatchKeepsCompactFormat() throws IOException {
+        Language language = new EnglishGB();
+        String[] words = new String[]{"quit", "aqua", "alibi", "queen", "monarch"};
+
+        StringTriePatcher patcher = new StringTriePatcher(language);
+        patcher.addWords(Arrays.asList("zebra", "quite"));
+        patcher.removeWords(Arrays.asList("monarch"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        patcher.patch(new ByteArrayInputStream(serializeCompact(build(language, words))), out);
+        byte[] patched = out.toByteArray();
+
+        // "z" and "b" weren't in the original symbol table, so need adding to the end.
+        String[] expected = new String[]{"quit", "aqua", "alibi", "queen", "zebra", "quite"};
+        Trie trie = new StringTrie.Deserializer().deserialize(new ByteArrayInputStream(patched), null, language);
+        assertTrieMatches("Patched compact trie", trie, expected, language);
+        assertFalse(trie.isWord("monarch"));
+    }
+
+    @Test
+    public void testAnnotatedMatchesUnannotated() throws IOException {
+        Language language = new EnglishUS();
+        String[] words = FullTrieTest.readDictionary(language);
+        StringTrie trie = build(language, words);
+
+        byte[] plainBytes = serializeCompact(trie);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        trie.writeCompact(out, 64);
+        byte[] annotatedBytes = out.toByteArray();
+
+        Trie annotated = new StringTrie.Deserializer().deserialize(new ByteArrayInputStream(annotatedBytes), null, language);
+        for (String word : words) {
+            assertTrue(word, annotated.isWord(word.toLowerCase()));
+        }
+
+        for (long seed = 0; seed < 10; seed++) {
+            SquareBoard board = SquareBoard.random(language, words, 5, seed);
+            Trie plainForBoard = new StringTrie.Deserializer().deserialize(ByteBuffer.wrap(plainBytes), board, language);
+            Trie annotatedForBoard = new StringTrie.Deserializer().deserialize(ByteBuffer.wrap(annotatedBytes), board, language);
+            assertSameSolutions("Annotated trie for board with seed " + seed, plainForBoard.solver(board, new WordFilter.MinLength(3)), annotatedForBoard.solver(board, new WordFilter.MinLength(3)));
+        }
+    }
+
+    @Test
+    public void testPatchUpdatesAnnotations() throws IOException {
+        Language language = new EnglishGB();
+
+        // Every word after "t" needs an "i" and an "n", until "tan" is added.
+        ByteArrayOutputStream original = new ByteArrayOutputStream();
+        build(language, new String[]{"tin", "tint"}).writeCompact(original, 1);
+
+        StringTriePatcher patcher = new StringTriePatcher(language);
+        patcher.addWords(Arrays.asList("tan"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        patcher.patch(new ByteArrayInputStream(original.toByteArray()), out);
+
+        SquareBoard board = new SquareBoard(new String[]{
+                "t", "a", "n", "x",
+                "x", "x", "x", "x",
+                "x", "x", "x", "x",
+                "x", "x", "x", "x",
+        });
+        Trie trie = new StringTrie.Deserializer().deserialize(new ByteArrayInputStream(out.toByteArray()), board, language);
+        assertTrue(trie.solver(board, null).containsKey("tan"));
+        assertTrieMatches("Patched annotated trie", new StringTrie.Deserializer().deserialize(new ByteArrayInputStream(out.toByteArray()), null, language), new String[]{"tin", "tint", "tan"}, language);
+    }
+
+    private static Trie deserialize(Language language, StringTrie trie) throws IOException {
+        return new StringTrie.Deserializer().deserialize(new ByteArrayInputStream(serializeCompact(trie)), null, language);
+    }
+
+    private static byte[] serializeCompact(StringTrie trie) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        trie.writeCompact(out);
+        return out.toByteArray();
+    }
+
+}
@@ -0,0 +1,116 @@
+package com.serwylo.lexica.trie.tests;
+
+import com.serwylo.lexica.lang.EnglishGB;
+import com.serwylo.lexica.lang.EnglishUS;
+import com.serwylo.lexica.lang.Language;
+
+import net.healeys.trie.DawgTrie;
+import net.healeys.trie.StringTrie;
+import net.healeys.trie.Trie;
+import net.healeys.trie.WordFilter;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+
+public class CountWordsTest extends TrieTest {
+
+    @Test
+    public void testMatchesSolver() throws IOException {
+        Language language = new EnglishUS();
+        String[] words = FullTrieTest.readDictionary(language);
+
+        StringTrie trie = new StringTrie(language);
+        addWords(trie, words);
+
+        for (Trie dict : new Trie[]{trie, DawgTrie.from(trie)}) {
+            for (int width = 4; width <= 6; width++) {
+                for (long seed = 0; seed < 10; seed++) {
+                    SquareBoard board = SquareBoard.random(language, words, width, seed);
+                    for (int minLength = 1; minLength <= 5; minLength++) {
+                        String message = dict.getClass().getSimpleName() + " " + width + "x" + width + " with seed " + seed + " and min length " + minLength;
+                        assertEquals(message, dict.solver(board, new WordFilter.MinLength(minLength)).size(), dict.countWords(board, minLength));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testPrunedTrie() throws IOException {
+        String[] words = new String[]{"quit", "aqua", "a", "alibi", "LongerWordThanA", "queen", "MONARCH"};
+        Language language = new EnglishGB();
+
+        StringTrie full = new StringTrie(language);
+        addWords(full, words);
+
+        CanTransitionMap board = new CanTransitionMap();
+        Trie pruned = new StringTrie.Deserializer().deserialize(new ByteArrayInputStream(serialize(full)), board, language);
+        assertEquals(pruned.solver(board, new WordFilter.MinLength(1)).size(), pruned.countWords(board, 1));
+    }
+
+    @Test
+    public void testFullyLoadedTrieMatchesPrunedTries() throws IOException {
+        Language language = new EnglishUS();
+        String[] words = FullTrieTest.readDictionary(language);
+
+        StringTrie trie = new StringTrie(language);
+        addWords(trie, words);
+        byte[] serialized = serialize(trie);
+
+        Trie full = new StringTrie.Deserializer().deserialize(new ByteArrayInputStream(serialized), null, language);
+        for (long seed = 0; seed < 10; seed++) {
+            SquareBoard board = SquareBoard.random(language, words, 4, seed);
+            Trie pruned = new StringTrie.Deserializer().deserialize(new ByteArrayInputStream(serialized), board, language);
+            assertEquals("Seed " + seed, pruned.countWords(board, 3), full.countWords(board, 3));
+        }
+    }
+
+    @Test
+    public void testAddingWordsAfterCounting() {
+        Language language = new EnglishUS();
+        String[] words = new String[]{"cat", "cats", "act", "tact"};
+        SquareBoard board = new SquareBoard(new String[]{"c", "a", "t", "s"});
+
+        StringTrie trie = new StringTrie(language);
+        addWords(trie, new String[]{"cat"});
+        assertEquals(1, trie.countWords(board, 3));
+
+        addWords(trie, words);
+        assertEquals(trie.solver(board, new WordFilter.MinLength(3)).size(), trie.countWords(board, 3));
+    }
+
+    @Test
+    public void testSharedBetweenThreads() throws Exception {
+        Language language = new EnglishUS();
+        String[] words = FullTrieTest.readDictionary(language);
+
+        StringTrie trie = new StringTrie(language);
+        addWords(trie, words);
+
+        List<Callable<int[]>> tasks = new ArrayList<>();
+        for (long seed = 0; seed < 40; seed++) {
+            SquareBoard board = SquareBoard.random(language, words, 5, seed);
+            tasks.add(() -> new int[]{trie.solver(board, new WordFilter.MinLength(3)).size(), trie.countWords(board, 3)});
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (Future<int[]> result : executor.invokeAll(tasks)) {
+                assertEquals(result.get()[0], result.get()[1]);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+}
@@ -64,6 +64,29 @@ public class CustomTrieTest extends TrieTest {
         assertTrieMatches("After desrializing only a subset of words from the letters آ م ا و غ ی", deserializedSubsetWords, subsetWords, new Persian());
     }
 
+    @Test
+    public void testCountingTiles() throws IOException {
+        String[] words = new String[]{"see", "sees", "seen", "sense", "ness"};
+        StringTrie trie = new StringTrie(new EnglishGB());
+        addWords(trie, words);
+        byte[] serialized = serialize(trie);
+
+        // Only one "s", so neither "sees" nor "sense" can be spelled, even though each pair of
+        // letters in them can be.
+        SquareBoard board = new SquareBoard(new String[]{
+                "s", "e", "x",
+                "n", "e", "x",
+                "x", "x", "x",
+        });
+
+        Trie counted = new StringTrie.Deserializer(true).deserialize(new ByteArrayInputStream(serialized), board, new EnglishGB());
+        assertTrieMatches("Counting tiles", counted, new String[]{"see", "seen"}, new EnglishGB());
+
+        Trie uncounted = new StringTrie.Deserializer().deserialize(new ByteArrayInputStream(serialized), board, new EnglishGB());
+        assertTrieMatches("Not counting tiles", uncounted, new String[]{"see", "sees", "seen", "sense"}, new EnglishGB());
+        assertSameSolutions("Counted vs not counted", uncounted.solver(board, null), counted.solver(board, null));
+    }
+
     private static String[] join(String[] one, String[] two) {
         String[] joined = new String[one.length + two.length];
         System.arraycopy(one, 0, joined, 0, one.length);
@@ -0,0 +1,76 @@
+package com.serwylo.lexica.trie.tests;
+
+import com.serwylo.lexica.lang.EnglishGB;
+import com.serwylo.lexica.lang.EnglishUS;
+import com.serwylo.lexica.lang.Language;
+import com.serwylo.lexica.lang.Persian;
+
+import net.healeys.trie.DawgTrie;
+import net.healeys.trie.StringTrie;
+import net.healeys.trie.Trie;
+import net.healeys.trie.WordFilter;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DawgTrieTest extends TrieTest {
+
+    @Test
+    public void testSmallDictionaries() throws IOException {
+        String[] words = new String[]{"quit", "aqua", "a", "alibi", "LongerWordThanA", "queen", "MONARCH"};
+        assertTrieMatches("DAWG GB trie", toDawgTrie(words, new EnglishGB()), words, new EnglishGB());
+
+        String[] persianWords = new String[]{"آیی", "اغوایم", "وزشها", "وزیدنیمان",};
+        assertTrieMatches("DAWG Persian trie", toDawgTrie(persianWords, new Persian()), persianWords, new Persian());
+    }
+
+    @Test
+    public void testSharedSuffixesAreMerged() {
+        StringTrie trie = new StringTrie(new EnglishUS());
+        addWords(trie, new String[]{"walking", "talking", "singing", "ringing"});
+
+        // "w" and "t" lead to the same "alking" node, and "s" and "r" to the same "inging" node.
+        // Both of these then share the same "ing" node: The root, "alking", "lking", "king",
+        // "inging", "nging", "ging", "ing", "ng", "g" and the final node = 11 (instead of 28).
+        DawgTrie dawg = DawgTrie.from(trie);
+        assertEquals(11, dawg.getNodeCount());
+    }
+
+    @Test
+    public void testFullDictionaryMatchesStringTrie() throws IOException {
+        Language language = new EnglishUS();
+        String[] words = FullTrieTest.readDictionary(language);
+
+        StringTrie stringTrie = new StringTrie(language);
+        addWords(stringTrie, words);
+
+        byte[] trieBytes = serialize(stringTrie);
+        byte[] dawgBytes = serialize(DawgTrie.from(stringTrie));
+        assertTrue("DAWG (" + dawgBytes.length + " bytes) should be smaller than the trie (" + trieBytes.length + " bytes)", dawgBytes.length < trieBytes.length / 2);
+
+        Trie dawg = new DawgTrie.Deserializer().deserialize(new ByteArrayInputStream(dawgBytes), null, language);
+
+        for (String word : words) {
+            assertTrue(word, dawg.isWord(word.toLowerCase()));
+        }
+
+        for (int width = 4; width <= 6; width++) {
+            for (long seed = 0; seed < 10; seed++) {
+                SquareBoard board = SquareBoard.random(language, words, width, seed);
+                assertSameSolutions("Board " + width + "x" + width + " with seed " + seed, stringTrie.solver(board, new WordFilter.MinLength(3)), dawg.solver(board, new WordFilter.MinLength(3)));
+            }
+        }
+    }
+
+    private static Trie toDawgTrie(String[] words, Language language) throws IOException {
+        StringTrie trie = new StringTrie(language);
+        addWords(trie, words);
+        return new DawgTrie.Deserializer().deserialize(new ByteArrayInputStream(serialize(DawgTrie.from(trie))), null, language);
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.serwylo.lexica.trie.tests;
+
+import com.serwylo.lexica.lang.EnglishGB;
+import com.serwylo.lexica.lang.EnglishUS;
+import com.serwylo.lexica.lang.Language;
+import com.serwylo.lexica.lang.Persian;
+
+import net.healeys.trie.MappedTrie;
+import net.healeys.trie.StringTrie;
+import net.healeys.trie.Trie;
+import net.healeys.trie.WordFilter;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+
+public class MappedTrieTest extends TrieTest {
+
+    @Test
+    public void testSmallDictionaries() throws IOException {
+        String[] words = new String[]{"quit", "aqua", "a", "alibi", "LongerWordThanA", "queen", "MONARCH"};
+        assertTrieMatches("Mapped GB trie", toMappedTrie(words, new EnglishGB()), words, new EnglishGB());
+
+        String[] persianWords = new String[]{"آیی", "اغوایم", "وزشها", "وزیدنیمان",};
+        assertTrieMatches("Mapped Persian trie", toMappedTrie(persianWords, new Persian()), persianWords, new Persian());
+    }
+
+    @Test
+    public void testFullDictionaryMatchesStringTrie() throws IOException {
+        Language language = new EnglishUS();
+        String[] words = FullTrieTest.readDictionary(language);
+
+        StringTrie stringTrie = new StringTrie(language);
+        addWords(stringTrie, words);
+        Trie mappedTrie = toMappedTrie(stringTrie, language);
+
+        for (String word : words) {
+            assertEquals(word, stringTrie.isWord(word.toLowerCase()), mappedTrie.isWord(word.toLowerCase()));
+        }
+
+        for (int width = 4; width <= 6; width++) {
+            for (long seed = 0; seed < 10; seed++) {
+                SquareBoard board = SquareBoard.random(language, words, width, seed);
+                assertSameSolutions("Board " + width + "x" + width + " with seed " + seed, stringTrie.solver(board, new WordFilter.MinLength(3)), mappedTrie.solver(board, new WordFilter.MinLength(3)));
+            }
+        }
+    }
+
+    private static Trie toMappedTrie(String[] words, Language language) throws IOException {
+        StringTrie trie = new StringTrie(language);
+        addWords(trie, words);
+        return toMappedTrie(trie, language);
+    }
+
+    private static Trie toMappedTrie(StringTrie trie, Language language) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        MappedTrie.write(trie, output);
+        return new MappedTrie.Deserializer().deserialize(new ByteArrayInputStream(output.toByteArray()), null, language);
+    }
+
+}
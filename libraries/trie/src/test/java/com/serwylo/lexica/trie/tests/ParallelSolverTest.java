@@ -0,0 +1,53 @@
+package com.serwylo.lexica.trie.tests;
+
+import com.serwylo.lexica.lang.EnglishUS;
+import com.serwylo.lexica.lang.Language;
+
+import net.healeys.trie.Solution;
+import net.healeys.trie.StringTrie;
+import net.healeys.trie.Trie;
+import net.healeys.trie.WordFilter;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class ParallelSolverTest extends TrieTest {
+
+    private static final Language LANGUAGE = new EnglishUS();
+
+    private static String[] words;
+    private static Trie trie;
+    private static ExecutorService executor;
+
+    @BeforeClass
+    public static void loadDictionary() {
+        words = FullTrieTest.readDictionary(LANGUAGE);
+        trie = new StringTrie(LANGUAGE);
+        addWords(trie, words);
+        executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    @AfterClass
+    public static void shutdown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void sameResultsAsSequential() {
+        for (int width = 4; width <= 6; width++) {
+            for (long seed = 0; seed < 10; seed++) {
+                SquareBoard board = SquareBoard.random(LANGUAGE, words, width, seed);
+                Map<String, List<Solution>> expected = trie.solver(board, new WordFilter.MinLength(3));
+                Map<String, List<Solution>> actual = trie.solver(board, new WordFilter.MinLength(3), executor);
+                assertSameSolutions("Board " + width + "x" + width + " with seed " + seed, expected, actual);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,63 @@
+package com.serwylo.lexica.trie.tests;
+
+import com.serwylo.lexica.lang.EnglishUS;
+import com.serwylo.lexica.lang.Language;
+
+import net.healeys.trie.DawgTrie;
+import net.healeys.trie.Solution;
+import net.healeys.trie.SolutionSink;
+import net.healeys.trie.StringTrie;
+import net.healeys.trie.Trie;
+import net.healeys.trie.WordFilter;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class SolutionSinkTest extends TrieTest {
+
+    private static final WordFilter MIN_LENGTH = new WordFilter.MinLength(3);
+
+    @Test
+    public void testSinksMatchSolver() throws IOException {
+        Language language = new EnglishUS();
+        String[] words = FullTrieTest.readDictionary(language);
+
+        StringTrie trie = new StringTrie(language);
+        addWords(trie, words);
+
+        for (Trie dict : new Trie[]{trie, DawgTrie.from(trie)}) {
+            for (long seed = 0; seed < 10; seed++) {
+                SquareBoard board = SquareBoard.random(language, words, 5, seed);
+                String message = dict.getClass().getSimpleName() + " with seed " + seed;
+
+                Map<String, List<Solution>> expected = dict.solver(board, MIN_LENGTH);
+
+                SolutionSink.WordCount count = new SolutionSink.WordCount();
+                dict.solve(board, MIN_LENGTH, count);
+                assertEquals(message, expected.size(), count.getCount());
+
+                SolutionSink.LengthHistogram histogram = new SolutionSink.LengthHistogram();
+                dict.solve(board, MIN_LENGTH, histogram);
+                int[] expectedCounts = new int[histogram.getCounts().length];
+                for (String word : expected.keySet()) {
+                    expectedCounts[word.length()]++;
+                }
+                assertArrayEquals(message, expectedCounts, histogram.getCounts());
+
+                SolutionSink.FirstPath firstPath = new SolutionSink.FirstPath();
+                dict.solve(board, MIN_LENGTH, firstPath);
+                assertEquals(message, expected.size(), firstPath.getSolutions().size());
+                for (Map.Entry<String, List<Solution>> entry : expected.entrySet()) {
+                    assertArrayEquals(message + ": " + entry.getKey(), entry.getValue().get(0).getPath(), firstPath.getSolutions().get(entry.getKey()).getPath());
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,70 @@
+package com.serwylo.lexica.trie.tests;
+
+import com.serwylo.lexica.lang.Language;
+
+import net.healeys.trie.TransitionMap;
+
+import java.util.Random;
+
+/**
+ * Mock {@link TransitionMap} which behaves like a real game board: Each cell can transition to
+ * the (up to) eight cells surrounding it, and each cell can only be used once per word.
+ * <p>
+ * Random boards are generated by picking a random letter from a random word in the dictionary,
+ * which roughly mimics the letter frequencies of the language without having to provide a
+ * letter distribution.
+ */
+public class SquareBoard implements TransitionMap {
+
+    private final String[] letters;
+    private final int width;
+
+    SquareBoard(String[] letters) {
+        this.letters = letters;
+        this.width = (int) Math.sqrt(letters.length);
+        if (width * width != letters.length) {
+            throw new IllegalArgumentException("Expected a square number of letters, but got " + letters.length);
+        }
+    }
+
+    static SquareBoard random(Language language, String[] words, int width, long seed) {
+        Random random = new Random(seed);
+        String[] letters = new String[width * width];
+        for (int i = 0; i < letters.length; i++) {
+            String word = words[random.nextInt(words.length)].toLowerCase(language.getLocale());
+            letters[i] = language.applyMandatorySuffix(word.substring(random.nextInt(word.length())).substring(0, 1));
+        }
+        return new SquareBoard(letters);
+    }
+
+    @Override
+    public boolean canTransition(int fromX, int fromY, int toX, int toY) {
+        if (fromX >= width || fromY >= width || toX >= width || toY >= width) {
+            return false;
+        }
+
+        int xDistance = Math.abs(fromX - toX);
+        int yDistance = Math.abs(fromY - toY);
+        return xDistance <= 1 && yDistance <= 1 && (xDistance + yDistance) > 0;
+    }
+
+    @Override
+    public boolean canRevisit() {
+        return false;
+    }
+
+    @Override
+    public String valueAt(int position) {
+        return letters[position];
+    }
+
+    @Override
+    public int getSize() {
+        return letters.length;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+}
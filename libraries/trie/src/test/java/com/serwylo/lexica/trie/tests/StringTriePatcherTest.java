@@ -0,0 +1,159 @@
+package com.serwylo.lexica.trie.tests;
+
+import com.serwylo.lexica.lang.EnglishGB;
+import com.serwylo.lexica.lang.EnglishUS;
+import com.serwylo.lexica.lang.Language;
+import com.serwylo.lexica.trie.util.TrieBuilder;
+
+import net.healeys.trie.StringTrie;
+import net.healeys.trie.StringTriePatcher;
+import net.healeys.trie.Trie;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class StringTriePatcherTest extends TrieTest {
+
+    @Test
+    public void testSmallDictionary() throws IOException {
+        Language language = new EnglishGB();
+        String[] words = new String[]{"quit", "aqua", "a", "alibi", "longerwordthana", "queen", "monarch"};
+
+        StringTriePatcher patcher = new StringTriePatcher(language);
+        patcher.addWords(Arrays.asList("quite", "alibis", "zebra", "queen"));
+        patcher.removeWords(Arrays.asList("monarch", "a", "notaword"));
+
+        Trie patched = patch(language, words, patcher);
+        assertEquals(3, patcher.getWordsAdded());
+        assertEquals(2, patcher.getWordsRemoved());
+
+        String[] expected = new String[]{"quit", "aqua", "alibi", "longerwordthana", "queen", "quite", "alibis", "zebra"};
+        assertTrieMatches("Patched GB trie", patched, expected, language);
+        assertFalse(patched.isWord("monarch"));
+        assertFalse(patched.isWord("a"));
+
+        // Removing "monarch" should remove every node which led only to it.
+        assertEquals(serialize(build(language, expected)).length, serialize(patched).length);
+    }
+
+    @Test
+    public void testFullDictionary() throws IOException {
+        Language language = new EnglishUS();
+        String[] words = FullTrieTest.readDictionary(language);
+
+        Random random = new Random(42);
+        Set<String> expected = new LinkedHashSet<>(Arrays.asList(words));
+        List<String> removed = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            removed.add(words[random.nextInt(words.length)]);
+        }
+        List<String> added = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            added.add(randomWord(random));
+        }
+        expected.removeAll(removed);
+        expected.addAll(added);
+
+        StringTriePatcher patcher = new StringTriePatcher(language);
+        patcher.removeWords(removed);
+        patcher.addWords(added);
+        Trie patched = patch(language, words, patcher);
+
+        String[] expectedWords = expected.toArray(new String[0]);
+        assertTrieMatches("Patched US trie", patched, expectedWords, language);
+        for (String word : removed) {
+            assertEquals(word, expected.contains(word), patched.isWord(word));
+        }
+
+        assertEquals(serialize(build(language, expectedWords)).length, serialize(patched).length);
+    }
+
+    /**
+     * Several lines of a dictionary can lower case to the same word, and a diff can move a word
+     * (here "queen", added in an earlier hunk than it is removed from). Neither should remove a
+     * word which a fresh build from the changed dictionary would still have.
+     */
+    @Test
+    public void testPatchFromDiff() throws IOException {
+        Language language = new EnglishUS();
+        File before = writeTempFile("dictionary", ".txt", "alibi", "aqua", "Monarch", "monarch", "quit", "queen", "zebra");
+        File after = writeTempFile("dictionary", ".txt", "alibi", "monarch", "queen", "quit", "quite", "zebra");
+        File diff = writeTempFile("changes", ".diff",
+                "--- a/dictionary.en_US.txt",
+                "+++ b/dictionary.en_US.txt",
+                "@@ -1,4 +1,3 @@",
+                " alibi",
+                "-aqua",
+                "-Monarch",
+                " monarch",
+                "+queen",
+                " quit",
+                "@@ -6,2 +5,2 @@",
+                "-queen",
+                "+quite",
+                " zebra");
+
+        File patched = File.createTempFile("trie", ".bin");
+        patched.deleteOnExit();
+        TrieBuilder.run(language, before, new File[]{patched}, TrieBuilder.Format.COMPACT);
+        StringTriePatcher patcher = TrieBuilder.patch(language, diff, after, new File[]{patched});
+        assertEquals(1, patcher.getWordsAdded());
+        assertEquals(1, patcher.getWordsRemoved());
+
+        File built = File.createTempFile("trie", ".bin");
+        built.deleteOnExit();
+        TrieBuilder.run(language, after, new File[]{built}, TrieBuilder.Format.COMPACT);
+
+        String[] expected = new String[]{"alibi", "monarch", "queen", "quit", "quite", "zebra"};
+        try (FileInputStream in = new FileInputStream(patched)) {
+            assertTrieMatches("Patched from diff", new StringTrie.Deserializer().deserialize(in, null, language), expected, language);
+        }
+        assertEquals(built.length(), patched.length());
+    }
+
+    private static File writeTempFile(String prefix, String suffix, String... lines) throws IOException {
+        File file = File.createTempFile(prefix, suffix);
+        file.deleteOnExit();
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), Charset.forName("UTF-8"))) {
+            for (String line : lines) {
+                writer.write(line);
+                writer.write('\n');
+            }
+        }
+        return file;
+    }
+
+    private static Trie patch(Language language, String[] words, StringTriePatcher patcher) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        patcher.patch(new ByteArrayInputStream(serialize(build(language, words))), out);
+        return new StringTrie.Deserializer().deserialize(new ByteArrayInputStream(out.toByteArray()), null, language);
+    }
+
+    private static String randomWord(Random random) {
+        StringBuilder word = new StringBuilder();
+        int length = 3 + random.nextInt(6);
+        for (int i = 0; i < length; i++) {
+            word.append((char) ('a' + random.nextInt(26)));
+        }
+        return word.toString();
+    }
+
+}
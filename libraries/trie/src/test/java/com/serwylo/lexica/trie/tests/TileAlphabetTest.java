@@ -0,0 +1,61 @@
+package com.serwylo.lexica.trie.tests;
+
+import com.serwylo.lexica.lang.EnglishGB;
+import com.serwylo.lexica.lang.EnglishUS;
+
+import net.healeys.trie.StringTrie;
+import net.healeys.trie.TileAlphabet;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TileAlphabetTest extends TrieTest {
+
+    @Test
+    public void testSameAlphabetForEachInstanceOfLanguage() {
+        assertSame(TileAlphabet.of(new EnglishGB()), TileAlphabet.of(new EnglishGB()));
+        assertNotEquals(TileAlphabet.of(new EnglishGB()), TileAlphabet.of(new EnglishUS()));
+    }
+
+    @Test
+    public void testIdsAreStable() {
+        TileAlphabet alphabet = TileAlphabet.of(new EnglishGB());
+        int qu = alphabet.intern("qu");
+
+        assertEquals(qu, alphabet.intern("qu"));
+        assertEquals(qu, alphabet.idOf("qu"));
+        assertEquals("qu", alphabet.tileOf(qu));
+        assertTrue(qu < alphabet.size());
+        assertEquals(TileAlphabet.NO_TILE, alphabet.idOf("not a tile"));
+    }
+
+    @Test
+    public void testTrieAndBoardFromDifferentLanguageInstances() throws IOException {
+        String[] words = new String[]{"quit", "aqua", "queen", "tin"};
+        StringTrie trie = new StringTrie(new EnglishGB());
+        addWords(trie, words);
+
+        // Deserialized with another instance of the same language, and solved for a board which
+        // has never been seen before.
+        SquareBoard board = new SquareBoard(new String[]{
+                "qu", "i", "t", "x",
+                "e", "n", "x", "x",
+                "e", "x", "x", "x",
+                "x", "x", "x", "x",
+        });
+        StringTrie loaded = new StringTrie.Deserializer().deserialize(new ByteArrayInputStream(serialize(trie)), board, new EnglishGB());
+
+        assertEquals(3, loaded.solver(board, null).size());
+        assertTrue(loaded.solver(board, null).containsKey("quit"));
+        assertTrue(loaded.solver(board, null).containsKey("queen"));
+        assertTrue(loaded.solver(board, null).containsKey("tin"));
+    }
+
+}
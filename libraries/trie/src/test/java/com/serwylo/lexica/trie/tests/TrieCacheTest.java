@@ -0,0 +1,117 @@
+package com.serwylo.lexica.trie.tests;
+
+import com.serwylo.lexica.lang.EnglishGB;
+import com.serwylo.lexica.lang.EnglishUS;
+import com.serwylo.lexica.lang.Language;
+import com.serwylo.lexica.trie.util.TrieCache;
+
+import net.healeys.trie.StringTrie;
+import net.healeys.trie.Trie;
+import net.healeys.trie.WordFilter;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TrieCacheTest extends TrieTest {
+
+    private static final String[] WORDS = new String[]{"quit", "aqua", "a", "alibi", "LongerWordThanA", "queen", "MONARCH"};
+
+    private final Map<String, Integer> reads = new HashMap<>();
+
+    private TrieCache createCache(long maxBytes) {
+        return new TrieCache(language -> {
+            Integer count = reads.get(language.getName());
+            reads.put(language.getName(), count == null ? 1 : count + 1);
+            return new ByteArrayInputStream(serialize(language));
+        }, maxBytes);
+    }
+
+    @Test
+    public void testOnlyReadsSourceOnce() throws IOException {
+        TrieCache cache = createCache(Long.MAX_VALUE);
+        Language language = new EnglishGB();
+
+        for (int i = 0; i < 5; i++) {
+            Trie trie = cache.load(language, new CanTransitionMap());
+            assertTrieMatches("Cached trie (load " + i + ")", trie, WORDS, language);
+        }
+
+        // Different instances of the same language share the same entry.
+        cache.load(new EnglishGB(), new CanTransitionMap());
+
+        assertEquals(1, (int) reads.get(language.getName()));
+    }
+
+    @Test
+    public void testPrunesToBoard() throws IOException {
+        TrieCache cache = createCache(Long.MAX_VALUE);
+        Language language = new EnglishGB();
+
+        CanTransitionMap board = new CanTransitionMap();
+        Trie cached = cache.load(language, board);
+        Trie uncached = new StringTrie.Deserializer().deserialize(new ByteArrayInputStream(serialize(language)), board, language);
+
+        assertSameSolutions("Cached vs uncached", uncached.solver(board, new WordFilter.MinLength(3)), cached.solver(board, new WordFilter.MinLength(3)));
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() throws IOException {
+        Language gb = new EnglishGB();
+        Language us = new EnglishUS();
+        long size = serialize(gb).length;
+
+        TrieCache cache = createCache(size + size / 2);
+
+        cache.load(gb, new CanTransitionMap());
+        cache.load(us, new CanTransitionMap());
+
+        assertFalse(cache.contains(gb));
+        assertTrue(cache.contains(us));
+        assertTrue(cache.sizeInBytes() <= size + size / 2);
+
+        cache.load(gb, new CanTransitionMap());
+        assertEquals(2, (int) reads.get(gb.getName()));
+    }
+
+    @Test
+    public void testKeepsMostRecentEvenIfTooLarge() throws IOException {
+        TrieCache cache = createCache(1);
+        cache.load(new EnglishGB(), new CanTransitionMap());
+        assertTrue(cache.contains(new EnglishGB()));
+    }
+
+    @Test
+    public void testEvictAllExcept() throws IOException {
+        TrieCache cache = createCache(Long.MAX_VALUE);
+        Language gb = new EnglishGB();
+        Language us = new EnglishUS();
+
+        cache.load(gb, new CanTransitionMap());
+        cache.load(us, new CanTransitionMap());
+        long usSize = serialize(us).length;
+
+        cache.evictAllExcept(us);
+        assertFalse(cache.contains(gb));
+        assertTrue(cache.contains(us));
+        assertEquals(usSize, cache.sizeInBytes());
+
+        cache.clear();
+        assertFalse(cache.contains(us));
+        assertEquals(0, cache.sizeInBytes());
+    }
+
+    private static byte[] serialize(Language language) {
+        StringTrie trie = new StringTrie(language);
+        addWords(trie, WORDS);
+        return serialize(trie);
+    }
+
+}
@@ -0,0 +1,176 @@
+package com.serwylo.lexica.trie.tests;
+
+import com.serwylo.lexica.lang.EnglishGB;
+import com.serwylo.lexica.lang.EnglishUS;
+import com.serwylo.lexica.lang.Language;
+import com.serwylo.lexica.trie.util.TrieBuilder;
+
+import net.healeys.trie.DawgTrie;
+import net.healeys.trie.MappedTrie;
+import net.healeys.trie.StringTrie;
+import net.healeys.trie.StringTriePatcher;
+import net.healeys.trie.Trie;
+import net.healeys.trie.TrieHeader;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TrieHeaderTest extends TrieTest {
+
+    private static final String[] WORDS = new String[]{"quit", "aqua", "a", "alibi", "longerwordthana", "queen", "monarch"};
+
+    @Test
+    public void testHeaderIsReadWithoutParsing() throws IOException {
+        for (TrieBuilder.Format format : TrieBuilder.Format.values()) {
+            byte[] bytes = TrieBuilder.serialize(build(new EnglishGB(), WORDS), new EnglishGB(), format);
+            TrieHeader header = TrieHeader.read(new ByteArrayInputStream(bytes));
+
+            assertEquals(format.getHeaderFormat(), header.getFormat());
+            assertEquals("en_GB", header.getLanguageName());
+            assertEquals(WORDS.length, header.getWordCount());
+        }
+    }
+
+    @Test
+    public void testFormatIsChosenFromHeader() throws IOException {
+        Language language = new EnglishGB();
+        StringTrie trie = build(language, WORDS);
+
+        assertTrue(TrieHeader.deserialize(new ByteArrayInputStream(TrieBuilder.serialize(trie, language, TrieBuilder.Format.STRING)), null, language) instanceof StringTrie);
+        assertTrue(TrieHeader.deserialize(new ByteArrayInputStream(TrieBuilder.serialize(trie, language, TrieBuilder.Format.COMPACT)), null, language) instanceof StringTrie);
+        assertTrue(TrieHeader.deserialize(new ByteArrayInputStream(TrieBuilder.serialize(trie, language, TrieBuilder.Format.MAPPED)), null, language) instanceof MappedTrie);
+        assertTrue(TrieHeader.deserialize(new ByteArrayInputStream(TrieBuilder.serialize(trie, language, TrieBuilder.Format.DAWG)), null, language) instanceof DawgTrie);
+
+        for (TrieBuilder.Format format : TrieBuilder.Format.values()) {
+            Trie loaded = TrieHeader.deserialize(new ByteArrayInputStream(TrieBuilder.serialize(trie, language, format)), null, language);
+            assertTrieMatches(format + " trie with header", loaded, WORDS, language);
+        }
+    }
+
+    @Test
+    public void testTriesWithoutHeaderStillLoad() throws IOException {
+        Language language = new EnglishGB();
+        byte[] bytes = serialize(build(language, WORDS));
+
+        assertNull(TrieHeader.read(new ByteArrayInputStream(bytes)));
+        assertTrieMatches("Trie without header", TrieHeader.deserialize(new ByteArrayInputStream(bytes), null, language), WORDS, language);
+    }
+
+    @Test
+    public void testCorruptionIsDetected() throws IOException {
+        Language language = new EnglishUS();
+        String[] words = FullTrieTest.readDictionary(language);
+        StringTrie trie = build(language, words);
+
+        for (TrieBuilder.Format format : TrieBuilder.Format.values()) {
+            byte[] bytes = TrieBuilder.serialize(trie, language, format);
+            boolean prunesForBoard = format.getHeaderFormat() == TrieHeader.Format.STRING || format.getHeaderFormat() == TrieHeader.Format.COMPACT;
+
+            // Towards the end of the file, so that it is in a part of the trie that the
+            // StringTrie.Deserializer skips over when pruning for a board.
+            byte[] corrupt = Arrays.copyOf(bytes, bytes.length);
+            corrupt[corrupt.length - 10] ^= 0x01;
+            assertThrows(format + " with a flipped bit", corrupt, language, prunesForBoard);
+
+            byte[] truncated = Arrays.copyOf(bytes, bytes.length - 10);
+            assertThrows(format + " which is truncated", truncated, language, false);
+
+            assertVerifyThrows(format + " with a flipped bit", corrupt);
+            assertVerifyThrows(format + " which is truncated", truncated);
+        }
+    }
+
+    @Test
+    public void testBufferIsCheckedAgainstHeader() throws IOException {
+        Language language = new EnglishGB();
+        byte[] bytes = TrieBuilder.serialize(build(language, WORDS), language, TrieBuilder.Format.COMPACT);
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        assertEquals(WORDS.length, TrieHeader.readAndVerify(buffer).getWordCount());
+        assertEquals("Should leave the buffer where it was", 0, buffer.position());
+        assertTrieMatches("Trie from buffer", new StringTrie.Deserializer().deserialize(buffer, null, language), WORDS, language);
+
+        try {
+            new StringTrie.Deserializer().deserialize(ByteBuffer.wrap(bytes), null, new EnglishUS());
+            fail("GB trie loaded from a buffer as US should fail to load");
+        } catch (IOException e) {
+            // Expected.
+        }
+
+        try {
+            new StringTrie.Deserializer().deserialize(ByteBuffer.wrap(Arrays.copyOf(bytes, bytes.length - 1)), null, language);
+            fail("Truncated trie loaded from a buffer should fail to load");
+        } catch (IOException e) {
+            // Expected.
+        }
+    }
+
+    private static void assertVerifyThrows(String message, byte[] bytes) {
+        try {
+            TrieHeader.readAndVerify(ByteBuffer.wrap(bytes));
+            fail(message + " should fail to verify");
+        } catch (IOException e) {
+            // Expected.
+        }
+    }
+
+    @Test
+    public void testWrongLanguageIsDetected() throws IOException {
+        byte[] bytes = TrieBuilder.serialize(build(new EnglishGB(), WORDS), new EnglishGB(), TrieBuilder.Format.COMPACT);
+        assertThrows("GB trie loaded as US", bytes, new EnglishUS(), false);
+    }
+
+    @Test
+    public void testPatchUpdatesHeader() throws IOException {
+        Language language = new EnglishGB();
+        byte[] bytes = TrieBuilder.serialize(build(language, WORDS), language, TrieBuilder.Format.COMPACT);
+
+        StringTriePatcher patcher = new StringTriePatcher(language);
+        patcher.addWords(Arrays.asList("zebra", "quite"));
+        patcher.removeWords(Arrays.asList("monarch"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        patcher.patch(new ByteArrayInputStream(bytes), out);
+
+        TrieHeader header = TrieHeader.read(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(TrieHeader.Format.COMPACT, header.getFormat());
+        assertEquals(WORDS.length + 1, header.getWordCount());
+
+        // Also checks the checksum of the patched trie.
+        Trie patched = TrieHeader.deserialize(new ByteArrayInputStream(out.toByteArray()), null, language);
+        assertTrue(patched.isWord("zebra"));
+    }
+
+    /**
+     * @param alsoForBoard Also try deserializing a {@link StringTrie} pruned for a board, which
+     *                     skips most of the trie rather than parsing it.
+     */
+    private static void assertThrows(String message, byte[] bytes, Language language, boolean alsoForBoard) {
+        try {
+            TrieHeader.deserialize(new ByteArrayInputStream(bytes), null, language);
+            fail(message + " should fail to load");
+        } catch (IOException e) {
+            // Expected.
+        }
+
+        if (alsoForBoard) {
+            try {
+                new StringTrie.Deserializer().deserialize(new ByteArrayInputStream(bytes), SquareBoard.random(language, WORDS, 4, 0), language);
+                fail(message + " should fail to load for a board");
+            } catch (IOException e) {
+                // Expected.
+            }
+        }
+    }
+
+}
@@ -4,6 +4,7 @@ import com.serwylo.lexica.lang.Language;
 import com.serwylo.lexica.trie.util.LetterFrequency;
 
 import net.healeys.trie.Solution;
+import net.healeys.trie.StringTrie;
 import net.healeys.trie.Trie;
 
 import org.junit.Assert;
@@ -18,6 +19,7 @@ import java.util.Map;
 import java.util.Set;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 public abstract class TrieTest {
@@ -71,12 +73,30 @@ public abstract class TrieTest {
         }
     }
 
+    static void assertSameSolutions(String message, Map<String, List<Solution>> expected, Map<String, List<Solution>> actual) {
+        assertEquals(message, new ArrayList<>(expected.keySet()), new ArrayList<>(actual.keySet()));
+        for (Map.Entry<String, List<Solution>> entry : expected.entrySet()) {
+            List<Solution> expectedSolutions = entry.getValue();
+            List<Solution> actualSolutions = actual.get(entry.getKey());
+            assertEquals(message + ": " + entry.getKey(), expectedSolutions.size(), actualSolutions.size());
+            for (int i = 0; i < expectedSolutions.size(); i++) {
+                assertArrayEquals(message + ": " + entry.getKey(), expectedSolutions.get(i).getPath(), actualSolutions.get(i).getPath());
+            }
+        }
+    }
+
     public static void addWords(Trie trie, String[] words) {
         for (String word : words) {
             trie.addWord(word.toLowerCase());
         }
     }
 
+    static StringTrie build(Language language, String[] words) {
+        StringTrie trie = new StringTrie(language);
+        addWords(trie, words);
+        return trie;
+    }
+
     public static byte[] serialize(Trie trie) {
         try {
             ByteArrayOutputStream outputStream = new ByteArrayOutputStream();